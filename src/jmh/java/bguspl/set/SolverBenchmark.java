@@ -0,0 +1,137 @@
+package bguspl.set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * JMH benchmarks for the set solver and the set validation of UtilImpl.
+ * Run with: mvn -P benchmark package && java -jar target/benchmarks.jar SolverBenchmark -prof gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+
+    /**
+     * The deck configuration: FeatureSize x FeatureCount.
+     */
+    @Param({"3x4", "3x6", "4x4", "4x6"})
+    public String features;
+
+    /**
+     * The number of cards on the table (scaled by FeatureSize / 3 so every table is about as likely to have a set).
+     */
+    @Param({"12", "21"})
+    public int tableSize;
+
+    private UtilImpl util;
+
+    /**
+     * A full shuffled deck, the cards on the table and the cards left near the end of a game.
+     */
+    private List<Integer> deck;
+    private List<Integer> table;
+    private List<Integer> endGame;
+    private int[] deckCards;
+    private int[] tableCards;
+
+    /**
+     * Candidate sets (about half of them legal) to validate, cycled through by testSet.
+     */
+    private int[][] candidates;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        String[] sizes = features.split("x");
+        Properties properties = new Properties();
+        properties.put("FeatureSize", sizes[0]);
+        properties.put("FeatureCount", sizes[1]);
+        properties.put("LogLevel", "OFF");
+        Config config = new Config(Logger.getAnonymousLogger(), properties);
+        util = new UtilImpl(config);
+
+        Random random = new Random(42);
+        deck = new ArrayList<>();
+        for (int card = 0; card < config.deckSize; ++card)
+            deck.add(card);
+        Collections.shuffle(deck, random);
+
+        int cards = Math.min(tableSize * config.featureSize / 3, config.deckSize);
+        table = new ArrayList<>(deck.subList(0, cards));
+        endGame = new ArrayList<>(deck.subList(0, Math.min(cards * 2, config.deckSize)));
+        deckCards = deck.stream().mapToInt(Integer::intValue).toArray();
+        tableCards = table.stream().mapToInt(Integer::intValue).toArray();
+
+        List<int[]> sets = util.findSets(deck, 512);
+        candidates = new int[sets.size() * 2][];
+        for (int i = 0; i < sets.size(); ++i) {
+            candidates[2 * i] = sets.get(i);
+            int[] other = sets.get(i).clone();
+            other[0] = (other[0] + 1) % config.deckSize;
+            candidates[2 * i + 1] = other;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        util.shutdown();
+    }
+
+    @Benchmark
+    public boolean testSet() {
+        next = (next + 1) % candidates.length;
+        return util.testSet(candidates[next]);
+    }
+
+    @Benchmark
+    public List<int[]> findSetsDeckFirst() {
+        return util.findSets(deck, 1);
+    }
+
+    @Benchmark
+    public List<int[]> findSetsTableAll() {
+        return util.findSets(table, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<int[]> findSetsEndGameFirst() {
+        return util.findSets(endGame, 1);
+    }
+
+    @Benchmark
+    public boolean hasSetDeck() {
+        return util.hasSet(deckCards, deckCards.length);
+    }
+
+    @Benchmark
+    public int countSetsTable() {
+        return util.countSets(tableCards, tableCards.length, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public int[][] cardsToFeatures() {
+        return util.cardsToFeatures(tableCards);
+    }
+}
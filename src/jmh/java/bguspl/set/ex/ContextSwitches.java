@@ -0,0 +1,43 @@
+package bguspl.set.ex;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Counts the context switches of the threads of this process, as reported by /proc (i.e. on Linux only). A thread that
+ * parks and is unparked switches out and back in voluntarily once, so the voluntary switches of the player threads
+ * count their wakeups.
+ */
+final class ContextSwitches {
+
+    private ContextSwitches() {
+    }
+
+    /**
+     * @param namePrefix - the prefix of the names of the threads to count (the kernel keeps the first 15 characters of
+     *                   a thread's name), or "" for all the threads.
+     * @return - the voluntary context switches of the live threads whose name starts with the prefix so far, or -1 if
+     * they are not known.
+     */
+    static long voluntary(String namePrefix) {
+        long switches = 0;
+        try (DirectoryStream<Path> tasks = Files.newDirectoryStream(Paths.get("/proc/self/task"))) {
+            for (Path task : tasks) {
+                try {
+                    if (!Files.readAllLines(task.resolve("comm")).get(0).startsWith(namePrefix)) continue;
+                    for (String line : Files.readAllLines(task.resolve("status")))
+                        if (line.startsWith("voluntary_ctxt_switches:"))
+                            switches += Long.parseLong(line.replaceAll("[^0-9]", ""));
+                } catch (IOException ignored) {
+                    // the thread terminated meanwhile
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+        return switches;
+    }
+}
@@ -0,0 +1,122 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterfaceDecorator;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Measures the cost of delivering key presses to player threads as the number of players grows.
+ * Every round presses one key for each player and waits until every player thread has handled it, so with per
+ * player wakeups the time per round grows linearly with the number of players (i.e. the time per round divided by
+ * players stays flat). Besides the time, every iteration reports the wakeups of the player threads per round (their
+ * voluntary context switches, see ContextSwitches), which should stay close to the number of players.
+ * Run with: java -jar target/benchmarks.jar PlayerWakeup (-prof perfnorm for the context switches of all the threads)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerWakeupBenchmark {
+
+    @Param({"2", "8", "32", "128"})
+    public int playersCount;
+
+    private Player[] players;
+    private Thread[] threads;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", Integer.toString(playersCount));
+        properties.put("ComputerPlayers", "0");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("LogLevel", "OFF");
+        Logger logger = Logger.getAnonymousLogger();
+        Config config = new Config(logger, properties);
+        Util util = new UtilImpl(config);
+        Env env = new Env(logger, config, new UserInterfaceDecorator(logger, util, null), util);
+
+        Table table = new Table(env);
+        table.placeCard(0, 0);
+        table.openInput();
+
+        players = new Player[playersCount];
+        threads = new Thread[playersCount];
+        for (int i = 0; i < playersCount; ++i) {
+            players[i] = new Player(env, null, table, i, true);
+            threads[i] = new Thread(players[i], "player-" + i);
+            threads[i].start();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        for (int i = 0; i < playersCount; ++i) {
+            players[i].terminate();
+            threads[i].join();
+        }
+    }
+
+    /**
+     * The wakeups of the player threads per round in an iteration (see ContextSwitches).
+     * Note: JMH reads the counters after the teardowns of the iteration (the player threads may be gone by then).
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Wakeups {
+
+        private long rounds;
+        private long start;
+        private long end;
+
+        @Setup(Level.Iteration)
+        public void start() {
+            rounds = 0;
+            start = ContextSwitches.voluntary("player-");
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop() {
+            end = ContextSwitches.voluntary("player-");
+        }
+
+        public double wakeupsPerRound() {
+            return rounds == 0 || start < 0 || end < 0 ? Double.NaN : (double) (end - start) / rounds;
+        }
+    }
+
+    /**
+     * Presses slot 0 for every player (toggling the player's token) and waits until all the presses were handled.
+     */
+    @Benchmark
+    public void pressRound(Wakeups wakeups) {
+        wakeups.rounds++;
+        for (Player player : players)
+            player.keyPressed(0);
+        for (Player player : players)
+            while (!player.getActionQueue().isEmpty())
+                Thread.yield();
+    }
+}
@@ -0,0 +1,165 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterfaceDecorator;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import bguspl.set.VirtualThreads;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.util.Properties;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Compares running the players on platform threads and on virtual threads (Java 21 or later, otherwise both modes run
+ * on platform threads). The setup prints the memory footprint of the started player threads, and every round presses
+ * one key for each player and waits until every player thread has handled it (i.e. a wakeup and a context switch per
+ * player). Every iteration also reports the voluntary context switches of the whole process per round (see
+ * ContextSwitches): a wakeup of a platform thread is a context switch, while virtual threads are mounted on the few
+ * carrier threads without one. Run with: java -jar target/benchmarks.jar ThreadMode
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThreadModeBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"1000", "10000"})
+    public int playersCount;
+
+    private Player[] players;
+    private Thread[] playerThreads;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", Integer.toString(playersCount));
+        properties.put("ComputerPlayers", "0");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("LogLevel", "OFF");
+        Logger logger = Logger.getAnonymousLogger();
+        Config config = new Config(logger, properties);
+        Util util = new UtilImpl(config);
+        ThreadFactory factory = VirtualThreads.factory(threads.equals("virtual"), logger);
+        Env env = new Env(logger, config, new UserInterfaceDecorator(logger, util, null), util, Clock.systemUTC(),
+                factory);
+
+        Table table = new Table(env);
+        table.placeCard(0, 0);
+        table.openInput();
+
+        long before = usedMemory();
+        long rssBefore = residentMemory();
+        players = new Player[playersCount];
+        playerThreads = new Thread[playersCount];
+        for (int i = 0; i < playersCount; ++i) {
+            players[i] = new Player(env, null, table, i, true);
+            playerThreads[i] = factory.newThread(players[i]);
+            playerThreads[i].start();
+        }
+        while (table.playersOrderList.size() < playersCount)
+            Thread.sleep(10);
+        long footprint = usedMemory() - before;
+        long rss = residentMemory() - rssBefore;
+        System.out.printf("%n%d %s player threads: %d KB heap (%.1f KB per player), %d KB resident (%.1f KB per player)%n",
+                playersCount, threads, footprint / 1024, footprint / 1024.0 / playersCount, rss / 1024,
+                rss / 1024.0 / playersCount);
+    }
+
+    /**
+     * @return - the resident memory of the process (including the native stacks of platform threads), or 0 if it is
+     * not known (it is read from /proc, i.e. on Linux only).
+     */
+    private static long residentMemory() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status")))
+                if (line.startsWith("VmRSS:"))
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+        } catch (IOException | RuntimeException ignored) {
+        }
+        return 0;
+    }
+
+    private static long usedMemory() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; ++i) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        for (int i = 0; i < playersCount; ++i) {
+            players[i].terminate();
+            playerThreads[i].join();
+        }
+    }
+
+    /**
+     * The context switches of all the threads per round in an iteration (see ContextSwitches).
+     * Note: JMH reads the counters after the teardowns of the iteration (the player threads may be gone by then).
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Switches {
+
+        private long rounds;
+        private long start;
+        private long end;
+
+        @Setup(Level.Iteration)
+        public void start() {
+            rounds = 0;
+            start = ContextSwitches.voluntary("");
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop() {
+            end = ContextSwitches.voluntary("");
+        }
+
+        public double switchesPerRound() {
+            return rounds == 0 || start < 0 || end < 0 ? Double.NaN : (double) (end - start) / rounds;
+        }
+    }
+
+    /**
+     * Presses slot 0 for every player (toggling the player's token) and waits until all the presses were handled.
+     */
+    @Benchmark
+    public void pressRound(Switches switches) {
+        switches.rounds++;
+        for (Player player : players)
+            player.keyPressed(0);
+        for (Player player : players)
+            while (!player.getActionQueue().isEmpty())
+                Thread.yield();
+    }
+}
@@ -0,0 +1,220 @@
+package bguspl.set;
+
+import bguspl.set.ex.ClaimProducer;
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.LoadDealer;
+import bguspl.set.ex.Table;
+
+import java.time.Clock;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * This class measures how many set claims per second the dealer can handle: a number of producer threads (see
+ * ClaimProducer) claim sets directly on a table without a user interface, at a given total rate and share of legal
+ * sets, against a dealer that keeps the game going (see LoadDealer). It reports the sustained verdicts per second, the
+ * growth of the queue of claims waiting for a verdict, percentiles of the time from claim to verdict (measured from the
+ * time every claim was due, so a dealer that falls behind the rate shows in them) and the claims missed against the
+ * rate. A producer has a single set of tokens, so it waits for the verdict on its claim (or for the claim to be made
+ * stale) before it claims again: the queue grows with the number of producers rather than with the rate, and a rate
+ * beyond what the dealer sustains shows as missed claims instead. A stale claim stays queued until the dealer drops
+ * it, so the queue may hold a few more claims than there are producers.
+ * Run with: java -cp target/classes bguspl.set.ClaimLoad [producers] [claims/second] [legal share] [seconds] [config file]
+ */
+public class ClaimLoad {
+
+    /**
+     * The time between two samples of the claims queue.
+     */
+    private static final long SAMPLE_MILLIS = 10;
+
+    private final Logger logger;
+    private final Config config;
+    private final double claimsPerSecond;
+    private final double legalShare;
+
+    /**
+     * @param config          - the game's configuration (one producer per player, see loadConfig).
+     * @param claimsPerSecond - the total rate of the producers' claims (0 to claim as fast as the verdicts allow).
+     * @param legalShare      - the probability of a claim being a legal set.
+     */
+    public ClaimLoad(Logger logger, Config config, double claimsPerSecond, double legalShare) {
+        this.logger = logger;
+        this.config = config;
+        this.claimsPerSecond = claimsPerSecond;
+        this.legalShare = legalShare;
+    }
+
+    /**
+     * The statistics of a load run.
+     */
+    public static class Result {
+
+        public final long millis;
+
+        /**
+         * The total rate of claims the producers were given (0 for as fast as the verdicts allow).
+         */
+        public final double claimsPerSecond;
+
+        /**
+         * The number of claims made, of verdicts given (and how many of them were legal sets), of claims dropped by
+         * the dealer (one of their cards was removed before they were handled) and of claims missed (the producer was
+         * still waiting for a verdict when they were due, see ClaimProducer).
+         */
+        public final long claims;
+        public final long verdicts;
+        public final long legal;
+        public final long dropped;
+        public final long missed;
+
+        /**
+         * The number of verdicts given in every second of the run, and the number of claims waiting for a verdict at
+         * the end of every second.
+         */
+        public final long[] verdictsPerSecond;
+        public final int[] queueDepths;
+
+        /**
+         * The highest and the average number of claims waiting for a verdict (sampled every few milliseconds).
+         */
+        public final int maxQueueDepth;
+        public final double averageQueueDepth;
+
+        /**
+         * The time from claim (when it was due) to verdict (in nanoseconds) that 50%, 99% and 99.9% of the verdicts
+         * took at most.
+         */
+        public final long p50;
+        public final long p99;
+        public final long p999;
+
+        Result(long millis, double claimsPerSecond, long claims, long dropped, long missed,
+               ClaimProducer.Verdicts verdicts, long[] verdictsPerSecond, int[] queueDepths, int maxQueueDepth,
+               double averageQueueDepth) {
+            this.millis = millis;
+            this.claimsPerSecond = claimsPerSecond;
+            this.claims = claims;
+            this.verdicts = verdicts.count();
+            this.legal = verdicts.legal();
+            this.dropped = dropped;
+            this.missed = missed;
+            this.verdictsPerSecond = verdictsPerSecond;
+            this.queueDepths = queueDepths;
+            this.maxQueueDepth = maxQueueDepth;
+            this.averageQueueDepth = averageQueueDepth;
+            p50 = verdicts.percentile(0.5);
+            p99 = verdicts.percentile(0.99);
+            p999 = verdicts.percentile(0.999);
+        }
+
+        public double verdictsPerSecond() {
+            return verdicts * 1000.0 / millis;
+        }
+
+        @Override
+        public String toString() {
+            String target = claimsPerSecond > 0 ? String.format("%.0f", claimsPerSecond) : "unlimited";
+            return String.format("%.0f verdicts/second at %s claims/second (%d claims, %d verdicts, %d legal, "
+                            + "%d dropped, %d missed), queue depth max %d average %.2f, "
+                            + "claim to verdict p50 %.1fus p99 %.1fus p99.9 %.1fus",
+                    verdictsPerSecond(), target, claims, verdicts, legal, dropped, missed, maxQueueDepth,
+                    averageQueueDepth, p50 / 1e3, p99 / 1e3, p999 / 1e3);
+        }
+    }
+
+    /**
+     * Runs the dealer under load for the given time.
+     *
+     * @return - the statistics of the run.
+     */
+    public Result run(long millis) throws InterruptedException {
+        UtilImpl util = new UtilImpl(config);
+        Env env = new Env(logger, config, new HeadlessUserInterface(), util, Clock.systemUTC(),
+                VirtualThreads.factory(config.virtualThreads, logger));
+        Table table = new Table(env);
+        ClaimProducer.Verdicts verdicts = new ClaimProducer.Verdicts();
+        ClaimProducer[] producers = new ClaimProducer[config.players];
+        Dealer dealer = new LoadDealer(env, table, producers);
+        for (int i = 0; i < producers.length; i++)
+            producers[i] = new ClaimProducer(env, dealer, table, i, claimsPerSecond / producers.length, legalShare,
+                    verdicts);
+
+        Thread dealerThread = env.threads.newThread(dealer);
+        dealerThread.setName("dealer");
+        long start = System.currentTimeMillis();
+        dealerThread.start();
+
+        long[] verdictsPerSecond = new long[(int) ((millis + 999) / 1000)];
+        int[] queueDepths = new int[verdictsPerSecond.length];
+        long samples = 0, depths = 0, lastVerdicts = 0;
+        int seconds = 0;
+        for (long now = start; now - start < millis; now = System.currentTimeMillis()) {
+            Thread.sleep(SAMPLE_MILLIS);
+            int depth = dealer.pendingClaims();
+            samples++;
+            depths += depth;
+            if (seconds < verdictsPerSecond.length && System.currentTimeMillis() - start >= 1000L * (seconds + 1)) {
+                long count = verdicts.count();
+                verdictsPerSecond[seconds] = count - lastVerdicts;
+                queueDepths[seconds++] = depth;
+                lastVerdicts = count;
+            }
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        dealer.terminate();
+        dealerThread.join();
+        util.shutdown();
+
+        long claims = 0, dropped = 0, missed = 0;
+        for (ClaimProducer producer : producers) {
+            claims += producer.claims();
+            dropped += producer.dropped();
+            missed += producer.missed();
+        }
+        return new Result(elapsed, claimsPerSecond, claims, dropped, missed, verdicts, verdictsPerSecond, queueDepths,
+                dealer.maxPendingClaims(), samples == 0 ? 0 : (double) depths / samples);
+    }
+
+    /**
+     * Loads a configuration for a load run: all the players are producers, there are no freezes, hints or table delays
+     * and the turn timeout is long enough for the table to be reshuffled only when it has no legal set.
+     *
+     * @param filename  - the configuration file (or null for the defaults).
+     * @param producers - the number of producers.
+     */
+    public static Config loadConfig(Logger logger, String filename, int producers) {
+        Properties properties = filename == null ? new Properties() : Config.loadProperties(filename, logger);
+        properties.setProperty("HumanPlayers", "0");
+        properties.setProperty("ComputerPlayers", Integer.toString(producers));
+        properties.setProperty("PointFreezeSeconds", "0");
+        properties.setProperty("PenaltyFreezeSeconds", "0");
+        properties.setProperty("TableDelaySeconds", "0");
+        properties.setProperty("Hints", "False");
+        properties.setProperty("TurnTimeoutSeconds", "3600");
+        return new Config(logger, properties);
+    }
+
+    /**
+     * Runs the dealer under load and prints the statistics of every second and a summary.
+     *
+     * @param args - the number of producers (4 by default), their total rate in claims per second (0, as fast as
+     *             possible, by default), the share of legal sets claimed (0.5 by default), the length of the run in
+     *             seconds (10 by default) and the configuration file (config.properties by default).
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int producers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        double claimsPerSecond = args.length > 1 ? Double.parseDouble(args[1]) : 0;
+        double legalShare = args.length > 2 ? Double.parseDouble(args[2]) : 0.5;
+        long seconds = args.length > 3 ? Long.parseLong(args[3]) : 10;
+        Logger logger = Logger.getLogger("SetClaimLoadLogger");
+        logger.setUseParentHandlers(false);
+        Config config = loadConfig(logger, args.length > 4 ? args[4] : "config.properties", producers);
+
+        Result result = new ClaimLoad(logger, config, claimsPerSecond, legalShare).run(seconds * 1000);
+        for (int second = 0; second < result.verdictsPerSecond.length; second++)
+            System.out.printf("second %d: %d verdicts, %d claims queued%n", second + 1,
+                    result.verdictsPerSecond[second], result.queueDepths[second]);
+        System.out.println(result);
+    }
+}
@@ -36,6 +36,21 @@ public class Config {
      */
     public final int deckSize;
 
+    /**
+     * The number of threads used by the set solver (1 or less for a sequential solver only)
+     */
+    public final int solverParallelism;
+
+    /**
+     * The minimal number of cards for which the set solver searches in parallel
+     */
+    public final int solverParallelThreshold;
+
+    /**
+     * Whether to run the dealer, players and AI on virtual threads (requires Java 21 or later)
+     */
+    public final boolean virtualThreads;
+
     /**
      * The number of human players in the game.
      */
@@ -51,6 +66,27 @@ public class Config {
      */
     public final int players;
 
+    /**
+     * How the computer players choose their key presses: "Random" (a random slot every 10 milliseconds) or "Solver"
+     * (legal sets found by the solver, claimed after a human-like reaction time and with a human-like error rate)
+     */
+    public final String computerStrategy;
+
+    /**
+     * The median number of milliseconds a solver computer player takes to claim a set
+     */
+    public final long computerReactionMillis;
+
+    /**
+     * The spread of the solver computer players' reaction times (the standard deviation of their logarithm)
+     */
+    public final double computerReactionSpread;
+
+    /**
+     * The probability that a solver computer player claims an illegal set
+     */
+    public final double computerErrorRate;
+
     /**
      * Whether to print out hints to the console or not
      */
@@ -155,7 +191,7 @@ public class Config {
      * @param filename - the name of the configuration file.
      * @return - a properties object with the configuration file contents.
      */
-    private static Properties loadProperties(String filename, Logger logger) {
+    static Properties loadProperties(String filename, Logger logger) {
 
         Properties properties = new Properties();
 
@@ -198,11 +234,23 @@ public class Config {
         featureCount = Integer.parseInt(properties.getProperty("FeatureCount", "4"));
         deckSize = (int) Math.pow(featureSize, featureCount);
 
+        // solver settings
+        solverParallelism = Integer.parseInt(properties.getProperty("SolverParallelism", "1"));
+        solverParallelThreshold = Integer.parseInt(properties.getProperty("SolverParallelThreshold", "500"));
+
+        // thread settings
+        virtualThreads = Boolean.parseBoolean(properties.getProperty("VirtualThreads", "False"));
+
         // gameplay settings
         humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
         computerPlayers = Integer.parseInt(properties.getProperty("ComputerPlayers", "0"));
         players = humanPlayers + computerPlayers;
 
+        computerStrategy = properties.getProperty("ComputerStrategy", "Random");
+        computerReactionMillis = (long) (Double.parseDouble(properties.getProperty("ComputerReactionSeconds", "1.5")) * 1000.0);
+        computerReactionSpread = Double.parseDouble(properties.getProperty("ComputerReactionSpread", "0.4"));
+        computerErrorRate = Double.parseDouble(properties.getProperty("ComputerErrorRate", "0.1"));
+
         hints = Boolean.parseBoolean(properties.getProperty("Hints", "False"));
         turnTimeoutMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutSeconds", "60")) * 1000.0);
         turnTimeoutWarningMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutWarningSeconds", "60")) * 1000.0);
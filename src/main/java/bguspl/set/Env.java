@@ -1,5 +1,7 @@
 package bguspl.set;
 
+import java.time.Clock;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Logger;
 
 public class Env {
@@ -8,11 +10,23 @@ public class Env {
     public final Config config;
     public final UserInterface ui;
     public final Util util;
+    public final Clock clock;
+    public final ThreadFactory threads;
 
     public Env(Logger logger, Config config, UserInterface ui, Util util) {
+        this(logger, config, ui, util, Clock.systemUTC());
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, Clock clock) {
+        this(logger, config, ui, util, clock, Thread::new);
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, Clock clock, ThreadFactory threads) {
         this.logger = logger;
         this.config = config;
         this.ui = ui;
         this.util = util;
+        this.clock = clock;
+        this.threads = threads;
     }
 }
@@ -0,0 +1,286 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * This class hosts many independent games (each with its own Env, Config, Table, Dealer and Players) in one JVM.
+ * The dealers run on a shared pool with a bounded number of threads, so at most that many games are played at the same
+ * time and the other submitted games wait for their turn. The parallel searches of the games' solvers (if enabled, see
+ * SolverParallelism) share a single pool of the host as well.
+ * The player and AI threads of every game are created through a factory that accounts for them. Their loops block
+ * until there is input to handle, so they cannot share a bounded pool of platform threads: every game being played
+ * has a thread per player and per AI, which are virtual threads if enabled (see VirtualThreads) and supported, and
+ * platform threads otherwise. The host keeps aggregate statistics of all the games.
+ * Run with: java -cp target/classes bguspl.set.GameHost [games] [concurrent games] [config file]
+ */
+public class GameHost {
+
+    private final Logger logger;
+
+    /**
+     * Runs the dealers of the games (one thread per game being played).
+     */
+    private final ExecutorService dealers;
+
+    /**
+     * Runs the parallel searches of all the games' solvers (its threads are only started once needed).
+     */
+    private final ForkJoinPool solverPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * The games submitted and not finished yet, by id.
+     */
+    private final Map<Integer, Game> games = new ConcurrentHashMap<>();
+
+    /**
+     * Aggregate statistics of the host.
+     */
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final AtomicInteger gamesFinished = new AtomicInteger();
+    private final AtomicLong finishedClaims = new AtomicLong();
+    private final AtomicInteger liveThreads = new AtomicInteger();
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * @param maxConcurrentGames - the number of games that may be played at the same time.
+     */
+    public GameHost(Logger logger, int maxConcurrentGames) {
+        this.logger = logger;
+        AtomicInteger dealerThreads = new AtomicInteger();
+        dealers = Executors.newFixedThreadPool(maxConcurrentGames,
+                r -> new Thread(r, "host-dealer-" + dealerThreads.incrementAndGet()));
+    }
+
+    /**
+     * A game hosted by the host.
+     */
+    public class Game {
+
+        public final int id;
+        public final Config config;
+        private final Dealer dealer;
+        private final Player[] players;
+        private volatile Future<?> future;
+        private volatile boolean stopped;
+
+        /**
+         * Per game accounting: the threads created and still running, and the time the game started and finished
+         * (0 until then).
+         */
+        private final AtomicInteger threadsCreated = new AtomicInteger();
+        private final AtomicInteger threadsRunning = new AtomicInteger();
+        private volatile long startMillis;
+        private volatile long endMillis;
+
+        private Game(int id, Config config) {
+            this.id = id;
+            this.config = config;
+            Util util = new UtilImpl(config, config.solverParallelism > 1 ? solverPool : null);
+            Env env = new Env(logger, config, new HeadlessUserInterface(), util, Clock.systemUTC(), threadFactory());
+            Table table = new Table(env);
+            players = new Player[config.players];
+            dealer = new Dealer(env, table, players);
+            for (int i = 0; i < players.length; i++)
+                players[i] = new Player(env, dealer, table, i, false);
+        }
+
+        private ThreadFactory threadFactory() {
+            ThreadFactory threads = VirtualThreads.factory(config.virtualThreads, logger);
+            return r -> {
+                int created = threadsCreated.incrementAndGet();
+                threadsRunning.incrementAndGet();
+                liveThreads.incrementAndGet();
+                Thread thread = threads.newThread(() -> {
+                    try {
+                        r.run();
+                    } finally {
+                        threadsRunning.decrementAndGet();
+                        liveThreads.decrementAndGet();
+                    }
+                });
+                thread.setName("game-" + id + "-thread-" + created);
+                return thread;
+            };
+        }
+
+        private void play() {
+            startMillis = System.currentTimeMillis();
+            try {
+                if (!stopped) dealer.run();
+            } finally {
+                endMillis = System.currentTimeMillis();
+                finishedClaims.addAndGet(dealer.claims());
+                gamesFinished.incrementAndGet();
+                games.remove(id);
+                logger.info("game " + id + " finished: " + this);
+            }
+        }
+
+        /**
+         * Terminates the game (if it was not played yet, it will end as soon as it starts).
+         */
+        public void stop() {
+            stopped = true;
+            dealer.terminate();
+        }
+
+        /**
+         * Waits until the game is finished.
+         */
+        public void await() throws InterruptedException {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                logger.severe("game " + id + " failed: " + e.getCause());
+            }
+        }
+
+        public boolean isFinished() {
+            return endMillis != 0;
+        }
+
+        /**
+         * @return - the time the game has been played so far (or in total, once finished).
+         */
+        public long durationMillis() {
+            if (startMillis == 0) return 0;
+            return (isFinished() ? endMillis : System.currentTimeMillis()) - startMillis;
+        }
+
+        public int threadsCreated() {
+            return threadsCreated.get();
+        }
+
+        public int threadsRunning() {
+            return threadsRunning.get();
+        }
+
+        public long claims() {
+            return dealer.claims();
+        }
+
+        public int[] scores() {
+            return Arrays.stream(players).mapToInt(Player::score).toArray();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.1fs, %d threads, %d claims, scores %s", durationMillis() / 1000.0,
+                    threadsCreated(), claims(), Arrays.toString(scores()));
+        }
+    }
+
+    /**
+     * Submits a game of computer players to be played once one of the host's dealer threads is free.
+     *
+     * @param config - the game's configuration.
+     * @return - the game.
+     */
+    public Game submit(Config config) {
+        Game game = new Game(nextId.incrementAndGet(), config);
+        games.put(game.id, game);
+        game.future = dealers.submit(game::play);
+        return game;
+    }
+
+    /**
+     * @return - the number of games submitted and not finished yet (being played or waiting).
+     */
+    public int activeGames() {
+        return games.size();
+    }
+
+    public int gamesFinished() {
+        return gamesFinished.get();
+    }
+
+    /**
+     * @return - the number of threads of all the games that are still running (not counting the dealer pool).
+     */
+    public int liveThreads() {
+        return liveThreads.get();
+    }
+
+    /**
+     * @return - the number of sets claimed in all the games so far.
+     */
+    public long claims() {
+        long claims = finishedClaims.get();
+        for (Game game : games.values())
+            if (!game.isFinished()) claims += game.claims();
+        return claims;
+    }
+
+    /**
+     * @return - the average number of sets claimed per second since the host started.
+     */
+    public double claimsPerSecond() {
+        return claims() / uptimeSeconds();
+    }
+
+    /**
+     * @return - the average number of games finished per second since the host started.
+     */
+    public double gamesPerSecond() {
+        return gamesFinished() / uptimeSeconds();
+    }
+
+    private double uptimeSeconds() {
+        return Math.max(System.nanoTime() - startNanos, 1) / 1e9;
+    }
+
+    /**
+     * Stops all the games and waits until the host's threads are finished.
+     */
+    public void shutdown() throws InterruptedException {
+        dealers.shutdown();
+        for (Game game : games.values())
+            game.stop();
+        dealers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        solverPool.shutdown();
+    }
+
+    /**
+     * Plays a number of games, some of them at the same time, and prints the host's statistics every second.
+     *
+     * @param args - the number of games (100 by default), the number of games played at the same time (10 by default)
+     *             and the configuration file (config.properties by default).
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int concurrentGames = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        Logger logger = Logger.getLogger("SetGameHostLogger");
+        logger.setUseParentHandlers(false);
+        Config config = new Config(logger, args.length > 2 ? args[2] : "config.properties");
+
+        GameHost host = new GameHost(logger, concurrentGames);
+        for (int i = 0; i < games; i++)
+            host.submit(config);
+        while (host.gamesFinished() < games) {
+            Thread.sleep(1000);
+            System.out.printf("%d games finished, %d active, %d threads, %d claims (%.0f claims/second)%n",
+                    host.gamesFinished(), host.activeGames(), host.liveThreads(), host.claims(),
+                    host.claimsPerSecond());
+        }
+        System.out.printf("%d games in %.1fs (%.2f games/second)%n", games, host.uptimeSeconds(),
+                host.gamesPerSecond());
+        host.shutdown();
+    }
+}
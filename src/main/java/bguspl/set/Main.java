@@ -4,9 +4,11 @@ import bguspl.set.ex.Dealer;
 import bguspl.set.ex.Player;
 import bguspl.set.ex.Table;
 
+import java.awt.EventQueue;
 import java.io.File;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.time.Clock;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
@@ -43,7 +45,7 @@ public class Main {
         logger = initLogger();
         ThreadLogger.logStart(logger, Thread.currentThread().getName());
         Config config = new Config(logger, "config.properties");
-        Util util = new UtilImpl(config);
+        UtilImpl util = new UtilImpl(config);
 
         Player[] players = new Player[config.players];
         UserInterface ui = null;
@@ -55,9 +57,13 @@ public class Main {
             if (config.humanPlayers > 0)
                 logger.severe("warning: running with human players with no user interface");
         }
+        boolean swing = ui != null;
         ui = new UserInterfaceDecorator(logger, util, ui);
+        if (config.tableDelayMillis > 0) ui = new UserInterfaceAnimator(ui, config.tableDelayMillis);
+        ui = new UserInterfaceCoalescer(ui, config.players, swing ? EventQueue::invokeLater : Runnable::run);
 
-        Env env = new Env(logger, config, ui, util);
+        Env env = new Env(logger, config, ui, util, Clock.systemUTC(),
+                VirtualThreads.factory(config.virtualThreads, logger));
 
         // create the game entities
         Table table = new Table(env);
@@ -66,12 +72,15 @@ public class Main {
             players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
 
         // start the dealer thread
-        ThreadLogger dealerThread = new ThreadLogger(dealer, "dealer", logger);
-        dealerThread.startWithLog();
+        Thread dealerThread = env.threads.newThread(dealer);
+        dealerThread.setName("dealer");
+        ThreadLogger.logStart(logger, dealerThread.getName());
+        dealerThread.start();
 
         try {
             // shutdown stuff
-            dealerThread.joinWithLog();
+            dealerThread.join();
+            ThreadLogger.logStop(logger, dealerThread.getName());
             if (!xButtonPressed && config.endGamePauseMillies > 0) Thread.sleep(config.endGamePauseMillies);
         } catch (InterruptedException ignored) {
         } finally {
@@ -79,6 +88,7 @@ public class Main {
             System.out.println("Thanks for playing... it was fun!");
             ThreadLogger.logStop(logger, Thread.currentThread().getName());
             if (!xButtonPressed) env.ui.dispose();
+            util.shutdown();
             for (Handler h : logger.getHandlers()) h.flush();
         }
     }
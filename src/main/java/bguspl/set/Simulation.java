@@ -0,0 +1,119 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.SimulatedDealer;
+import bguspl.set.ex.Table;
+
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * This class runs complete games of computer players without a user interface and in logical time (see
+ * SimulatedDealer), and reports how fast they ran together with the statistics of every game.
+ * Run with: java -cp target/classes bguspl.set.Simulation [games] [config file]
+ */
+public class Simulation {
+
+    private final Logger logger;
+    private final Config config;
+    private final UtilImpl util;
+
+    public Simulation(Logger logger, Config config) {
+        this.logger = logger;
+        this.config = config;
+        this.util = new UtilImpl(config);
+    }
+
+    /**
+     * The statistics of a simulated game.
+     */
+    public static class Result {
+
+        /**
+         * The length of the game in logical time, and the real time it took to simulate it.
+         */
+        public final long gameMillis;
+        public final long realNanos;
+
+        /**
+         * The final score of every player, and the number of sets claimed.
+         */
+        public final int[] scores;
+        public final long claims;
+
+        Result(long gameMillis, long realNanos, int[] scores, long claims) {
+            this.gameMillis = gameMillis;
+            this.realNanos = realNanos;
+            this.scores = scores;
+            this.claims = claims;
+        }
+
+        public int points() {
+            return Arrays.stream(scores).sum();
+        }
+
+        public int winnerScore() {
+            return Arrays.stream(scores).max().orElse(0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.1fs of play in %.2fms, %d claims, %d points, scores %s", gameMillis / 1000.0,
+                    realNanos / 1e6, claims, points(), Arrays.toString(scores));
+        }
+    }
+
+    /**
+     * Plays a complete game (all the players are computer players).
+     *
+     * @return - the statistics of the game.
+     */
+    public Result play() {
+        VirtualClock clock = new VirtualClock(0);
+        Env env = new Env(logger, config, new HeadlessUserInterface(), util, clock);
+        Table table = new Table(env);
+        Player[] players = new Player[config.players];
+        SimulatedDealer dealer = new SimulatedDealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+
+        long start = System.nanoTime();
+        dealer.run();
+        long realNanos = System.nanoTime() - start;
+
+        int[] scores = Arrays.stream(players).mapToInt(Player::score).toArray();
+        return new Result(clock.millis(), realNanos, scores, dealer.claims());
+    }
+
+    /**
+     * Simulates a number of games and prints the statistics of every game and a summary.
+     *
+     * @param args - the number of games (100 by default) and the configuration file (config.properties by default).
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        Logger logger = Logger.getLogger("SetSimulationLogger");
+        logger.setUseParentHandlers(false);
+        Config config = new Config(logger, args.length > 1 ? args[1] : "config.properties");
+        Simulation simulation = new Simulation(logger, config);
+
+        long gameMillis = 0, claims = 0, points = 0, winnerScores = 0;
+        long start = System.nanoTime();
+        for (int game = 1; game <= games; game++) {
+            Result result = simulation.play();
+            System.out.println("game " + game + ": " + result);
+            gameMillis += result.gameMillis;
+            claims += result.claims;
+            points += result.points();
+            winnerScores += result.winnerScore();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d games in %.2fs (%.1f games/second)%n", games, seconds, games / seconds);
+        System.out.printf("average game: %.1fs of play, %.1f claims, %.1f points, winner score %.1f%n",
+                gameMillis / 1000.0 / games, (double) claims / games, (double) points / games,
+                (double) winnerScores / games);
+        simulation.util.shutdown();
+    }
+}
@@ -84,4 +84,19 @@ public interface UserInterface {
      * Programmatically closes the window.
      */
     void dispose();
+
+    /**
+     * Display the updates made so far, if the implementation holds them back (e.g. to display them in batches).
+     */
+    default void flush() {}
+
+    /**
+     * Run a callback once the changes made so far are displayed: right away, unless the implementation displays them
+     * later (e.g. animated), in which case it runs on another thread. The caller does not wait for it.
+     *
+     * @param shown - the callback (should be short, and must not call back into the user interface).
+     */
+    default void whenChangesShown(Runnable shown) {
+        shown.run();
+    }
 }
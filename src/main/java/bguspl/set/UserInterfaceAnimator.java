@@ -0,0 +1,146 @@
+package bguspl.set;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * This class replays the changes of the cards on the table to another user interface on a thread of its own, pausing
+ * for the table delay after every card placed or removed. The game threads only queue the changes, so the table state
+ * changes at once and the dealer never waits for the animation. The dealer lets the players act on the new cards only
+ * once they are shown (see whenChangesShown), so no key presses are made on the cards being replaced and the changes
+ * queued stay at about a table's worth.
+ * Token changes (and the winners announcement) are queued as well, to keep their order relative to the card changes.
+ * All other updates are passed on directly.
+ */
+public class UserInterfaceAnimator implements UserInterface {
+
+    private final UserInterface ui;
+
+    /**
+     * The pause after every card placed or removed.
+     */
+    private final long delayMillis;
+
+    /**
+     * The changes not replayed yet, in order.
+     */
+    private final BlockingQueue<Runnable> changes = new LinkedBlockingQueue<>();
+
+    private final Thread animator;
+
+    public UserInterfaceAnimator(UserInterface ui, long delayMillis) {
+        this.ui = ui;
+        this.delayMillis = delayMillis;
+        animator = new Thread(this::replay, "animator");
+        animator.setDaemon(true);
+        animator.start();
+    }
+
+    /**
+     * The animator thread starts here: replays the queued changes until the user interface is disposed.
+     */
+    private void replay() {
+        try {
+            while (!Thread.currentThread().isInterrupted())
+                changes.take().run();
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void placeCard(int card, int slot) {
+        changes.add(() -> ui.placeCard(card, slot));
+        changes.add(this::pause);
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        changes.add(() -> ui.removeCard(slot));
+        changes.add(this::pause);
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        changes.add(() -> ui.placeToken(player, slot));
+    }
+
+    @Override
+    public void removeTokens() {
+        changes.add(ui::removeTokens);
+    }
+
+    @Override
+    public void removeTokens(int slot) {
+        changes.add(() -> ui.removeTokens(slot));
+    }
+
+    @Override
+    public void removeToken(int player, int slot) {
+        changes.add(() -> ui.removeToken(player, slot));
+    }
+
+    @Override
+    public void setCountdown(long millies, boolean warn) {
+        ui.setCountdown(millies, warn);
+    }
+
+    @Override
+    public void setElapsed(long millies) {
+        ui.setElapsed(millies);
+    }
+
+    @Override
+    public void setScore(int player, int score) {
+        ui.setScore(player, score);
+    }
+
+    @Override
+    public void setFreeze(int player, long millies) {
+        ui.setFreeze(player, millies);
+    }
+
+    @Override
+    public void flush() {
+        ui.flush();
+    }
+
+    /**
+     * Queues the callback after the changes queued so far, so the animator thread runs it once they were replayed (it
+     * does not run if the user interface is disposed first).
+     */
+    @Override
+    public void whenChangesShown(Runnable shown) {
+        changes.add(shown);
+    }
+
+    @Override
+    public void announceWinner(int[] players) {
+        changes.add(() -> ui.announceWinner(players));
+    }
+
+    /**
+     * Replays the remaining changes (waiting for them if called by another thread) and then disposes of the user
+     * interface.
+     */
+    @Override
+    public void dispose() {
+        changes.add(() -> {
+            ui.dispose();
+            Thread.currentThread().interrupt();
+        });
+        if (Thread.currentThread() != animator) {
+            try {
+                animator.join();
+            } catch (InterruptedException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package bguspl.set;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * This class filters the timer updates the dealer pushes on every tick (the countdown, elapsed time and freeze
+ * displays) down to the ones that change what is displayed, and passes them on to another user interface in batches:
+ * all the changes made between two calls to flush() are dispatched together (e.g. in a single event of the Swing event
+ * dispatch thread). All other updates are passed on directly.
+ * Note: the timer updates and flush() should be called by a single thread (the dealer).
+ */
+public class UserInterfaceCoalescer implements UserInterface {
+
+    private final UserInterface ui;
+
+    /**
+     * Runs a batch of changes (e.g. EventQueue::invokeLater, or Runnable::run to run it on the calling thread).
+     */
+    private final Consumer<Runnable> dispatcher;
+
+    /**
+     * The displayed value of every widget, as last passed on (Long.MIN_VALUE if none yet).
+     */
+    private long countdownShown = Long.MIN_VALUE;
+    private long elapsedShown = Long.MIN_VALUE;
+    private final long[] freezeShown;
+
+    /**
+     * The changes not dispatched yet.
+     */
+    private List<Runnable> pending = new ArrayList<>();
+
+    public UserInterfaceCoalescer(UserInterface ui, int players, Consumer<Runnable> dispatcher) {
+        this.ui = ui;
+        this.dispatcher = dispatcher;
+        freezeShown = new long[players];
+        Arrays.fill(freezeShown, Long.MIN_VALUE);
+    }
+
+    /**
+     * Dispatches all the changes made since the last flush, as a single batch.
+     */
+    @Override
+    public void flush() {
+        if (pending.isEmpty()) return;
+        List<Runnable> batch = pending;
+        pending = new ArrayList<>();
+        dispatcher.accept(() -> batch.forEach(Runnable::run));
+    }
+
+    @Override
+    public void setCountdown(long millies, boolean warn) {
+        // hundredths of a second are displayed in warn mode, whole seconds otherwise (negative keys mark warn mode)
+        long shown = warn ? -1 - Math.round(millies / 10.0) : millies / 1000;
+        if (shown == countdownShown) return;
+        countdownShown = shown;
+        pending.add(() -> ui.setCountdown(millies, warn));
+    }
+
+    @Override
+    public void setElapsed(long millies) {
+        long shown = millies / 1000;
+        if (shown == elapsedShown) return;
+        elapsedShown = shown;
+        pending.add(() -> ui.setElapsed(millies));
+    }
+
+    @Override
+    public void setFreeze(int player, long millies) {
+        long shown = millies > 0 ? millies / 1000 : -1;
+        if (shown == freezeShown[player]) return;
+        freezeShown[player] = shown;
+        pending.add(() -> ui.setFreeze(player, millies));
+    }
+
+    @Override
+    public void placeCard(int card, int slot) {
+        ui.placeCard(card, slot);
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        ui.removeCard(slot);
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        ui.placeToken(player, slot);
+    }
+
+    @Override
+    public void removeTokens() {
+        ui.removeTokens();
+    }
+
+    @Override
+    public void removeTokens(int slot) {
+        ui.removeTokens(slot);
+    }
+
+    @Override
+    public void removeToken(int player, int slot) {
+        ui.removeToken(player, slot);
+    }
+
+    @Override
+    public void setScore(int player, int score) {
+        ui.setScore(player, score);
+    }
+
+    @Override
+    public void announceWinner(int[] players) {
+        ui.announceWinner(players);
+    }
+
+    @Override
+    public void whenChangesShown(Runnable shown) {
+        ui.whenChangesShown(shown);
+    }
+
+    @Override
+    public void dispose() {
+        ui.dispose();
+    }
+}
@@ -96,6 +96,17 @@ public class UserInterfaceDecorator implements UserInterface {
         if (ui != null) ui.announceWinner(players);
     }
 
+    @Override
+    public void flush() {
+        if (ui != null) ui.flush();
+    }
+
+    @Override
+    public void whenChangesShown(Runnable shown) {
+        if (ui != null) ui.whenChangesShown(shown);
+        else shown.run();
+    }
+
     @Override
     public void dispose() {
         logger.severe("disposing of user interface elements");
@@ -1,6 +1,9 @@
 package bguspl.set;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * An interface for general utilities provided for convenience.
@@ -40,6 +43,71 @@ public interface Util {
      */
     List<int[]> findSets(List<Integer> deck, int count);
 
+    /**
+     * Finds up to count sets in the first len cards of the given array and passes each one to the sink.
+     * Note: the array passed to the sink may be reused by the next call, copy it if it should be kept.
+     *
+     * @param cards - an array of card ids.
+     * @param len   - the number of cards (from the start of the array) to search in.
+     * @param count - the maximum number of sets to find.
+     * @param sink  - receives the card ids (sorted) of every set found, may be null.
+     * @return - the number of sets found.
+     */
+    default int findSets(int[] cards, int len, int count, Consumer<int[]> sink) {
+        List<Integer> deck = Arrays.stream(cards, 0, len).boxed().collect(Collectors.toList());
+        List<int[]> sets = findSets(deck, count);
+        if (sink != null) sets.forEach(sink);
+        return sets.size();
+    }
+
+    /**
+     * Finds up to count sets that contain the given card and otherwise only cards from the first len cards of the
+     * given array (which should not contain the card itself).
+     * Note: the array passed to the sink may be reused by the next call, copy it if it should be kept.
+     *
+     * @param card  - the card every set must contain.
+     * @param cards - an array of card ids.
+     * @param len   - the number of cards (from the start of the array) to search in.
+     * @param count - the maximum number of sets to find.
+     * @param sink  - receives the card ids (sorted) of every set found, may be null.
+     * @return - the number of sets found.
+     */
+    default int findSetsWith(int card, int[] cards, int len, int count, Consumer<int[]> sink) {
+        int[] withCard = Arrays.copyOf(cards, len + 1);
+        withCard[len] = card;
+        int[] found = new int[1];
+        findSets(withCard, len + 1, Integer.MAX_VALUE, set -> {
+            if (found[0] < count && Arrays.stream(set).anyMatch(c -> c == card)) {
+                found[0]++;
+                if (sink != null) sink.accept(set);
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * Counts up to count sets in the first len cards of the given array.
+     *
+     * @param cards - an array of card ids.
+     * @param len   - the number of cards (from the start of the array) to search in.
+     * @param count - the maximum number of sets to count.
+     * @return - the number of sets found (at most count).
+     */
+    default int countSets(int[] cards, int len, int count) {
+        return findSets(cards, len, count, null);
+    }
+
+    /**
+     * Checks if there is at least one legal set in the first len cards of the given array.
+     *
+     * @param cards - an array of card ids.
+     * @param len   - the number of cards (from the start of the array) to search in.
+     * @return - true iff there is a legal set.
+     */
+    default boolean hasSet(int[] cards, int len) {
+        return countSets(cards, len, 1) > 0;
+    }
+
     /**
      * Spin a random number of times (for debugging/testing).
      */
@@ -1,9 +1,14 @@
 package bguspl.set;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.IntStream;
 
 /**
@@ -13,8 +18,81 @@ public class UtilImpl implements Util {
 
     private final Config config;
 
+    /**
+     * The features of every card in the deck, packed into one word per card: feature i is stored one-hot (bit v of
+     * the field is set iff the feature value is v) in a field of config.featureSize bits starting at bit
+     * i * config.featureSize. Null if the features do not fit in a single long.
+     */
+    private final long[] packedCards;
+
+    /**
+     * A mask with the lowest bit of every feature field set.
+     */
+    private final long fieldsLowBits;
+
+    /**
+     * The weight of every feature in the card id (i.e. config.featureSize ^ (config.featureCount - 1 - i)).
+     */
+    private final int[] featureWeights;
+
+    /**
+     * Per thread scratch buffers for the solver (so that a search does not allocate): the position of every card in
+     * the searched array, and the set handed to the sink.
+     */
+    private final ThreadLocal<int[]> positions;
+    private final ThreadLocal<int[]> setBuffers;
+
+    /**
+     * The pool used for searches of at least config.solverParallelThreshold cards (null for sequential searches only).
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * True iff the pool was created here (and should be shut down here as well, see shutdown).
+     */
+    private final boolean ownsPool;
+
     public UtilImpl(Config config) {
+        this(config, config.solverParallelism > 1 ? new ForkJoinPool(config.solverParallelism) : null, true);
+    }
+
+    /**
+     * @param pool - the pool used for parallel searches (null for sequential searches only). It is owned by the
+     *             caller, which should shut it down when it is no longer needed.
+     */
+    public UtilImpl(Config config, ForkJoinPool pool) {
+        this(config, pool, false);
+    }
+
+    private UtilImpl(Config config, ForkJoinPool pool, boolean ownsPool) {
         this.config = config;
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+
+        featureWeights = new int[config.featureCount];
+        for (int i = config.featureCount - 1, weight = 1; i >= 0; --i, weight *= config.featureSize)
+            featureWeights[i] = weight;
+
+        if (config.featureSize > 0 && config.featureSize * config.featureCount <= Long.SIZE) {
+            long lowBits = 0;
+            for (int i = 0; i < config.featureCount; ++i)
+                lowBits |= 1L << (i * config.featureSize);
+            fieldsLowBits = lowBits;
+
+            packedCards = new long[config.deckSize];
+            int[] features = new int[config.featureCount];
+            for (int card = 0; card < config.deckSize; ++card) {
+                cardToFeatures(card, features);
+                for (int i = 0; i < config.featureCount; ++i)
+                    packedCards[card] |= 1L << (i * config.featureSize + features[i]);
+            }
+        } else {
+            fieldsLowBits = 0;
+            packedCards = null;
+        }
+
+        positions = ThreadLocal.withInitial(() -> new int[config.deckSize]);
+        setBuffers = ThreadLocal.withInitial(() -> new int[Math.max(config.featureSize, 3)]);
     }
 
     private void cardToFeatures(int card, int[] features) {
@@ -40,6 +118,37 @@ public class UtilImpl implements Util {
 
     @Override
     public boolean testSet(int[] cards) {
+        if (packedCards == null) return testSetByFeatures(cards);
+        if (cards.length == 3 && config.featureSize == 3) return testPackedTriple(cards[0], cards[1], cards[2]);
+
+        // the number of bits set in each field of the union is the number of distinct values of that feature
+        long union = 0;
+        for (int card : cards)
+            union |= packedCards[card];
+
+        long fieldMask = (1L << config.featureSize) - 1;
+        for (int i = 0; i < config.featureCount; ++i) {
+            int values = Long.bitCount((union >>> (i * config.featureSize)) & fieldMask);
+            boolean sameSame = values <= 1, butDifferent = values == cards.length;
+            if (sameSame == butDifferent) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks a set of three cards with 3-valued features, all features at once: a feature is illegal iff exactly two
+     * of the three bits in its field of the union are set.
+     */
+    private boolean testPackedTriple(int first, int second, int third) {
+        long union = packedCards[first] | packedCards[second] | packedCards[third];
+        long b0 = union & fieldsLowBits;
+        long b1 = (union >>> 1) & fieldsLowBits;
+        long b2 = (union >>> 2) & fieldsLowBits;
+        long twoOrMore = (b0 & b1) | (b0 & b2) | (b1 & b2);
+        return (twoOrMore & ~(b0 & b1 & b2)) == 0;
+    }
+
+    private boolean testSetByFeatures(int[] cards) {
         int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
         for (int i = 0; i < config.featureCount; ++i) {
             boolean sameSame = true, butDifferent = true;
@@ -67,27 +176,352 @@ public class UtilImpl implements Util {
     @Override
     public List<int[]> findSets(List<Integer> deck, int count) {
         LinkedList<int[]> sets = new LinkedList<>();
-        int n = deck.size();
-        int r = config.featureSize;
+        int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+        findSets(cards, cards.length, count, set -> sets.add(set.clone()));
+        return sets;
+    }
+
+    @Override
+    public int findSets(int[] cards, int len, int count, Consumer<int[]> sink) {
+        return search(cards, len, count, sink, -1);
+    }
+
+    @Override
+    public int findSetsWith(int card, int[] cards, int len, int count, Consumer<int[]> sink) {
+        return search(cards, len, count, sink, card);
+    }
+
+    private int search(int[] cards, int len, int count, Consumer<int[]> sink, int with) {
+        if (count <= 0) return 0;
+        if (config.featureSize < 3 || config.featureSize > 3 && packedCards == null)
+            return findSetsByCombinations(cards, len, count, sink, with);
+
+        // position (+1) of every card in cards, 0 if the card is not in cards
+        int[] position = positions.get();
+        for (int i = 0; i < len; ++i)
+            position[cards[i]] = i + 1;
+
+        try {
+            if (pool != null && !pool.isShutdown() && len >= config.solverParallelThreshold)
+                return searchParallel(cards, len, count, sink, with, position);
+
+            Search search = new Search(cards, len, count, sink, position, setBuffers.get(), with, 0, len, null);
+            searchRange(search);
+            return search.found;
+        } finally {
+            for (int i = 0; i < len; ++i)
+                position[cards[i]] = 0;
+        }
+    }
+
+    /**
+     * The state of a single search, over the sets whose first card (from the cards array) is in positions [lo, hi).
+     */
+    private static final class Search {
+        final int[] cards;
+        final int len;
+        final int count;
+        final Consumer<int[]> sink;
+        final int[] position;
+        final int[] picked;
+        final int[] set;
+        final int with;
+        final int lo;
+        final int hi;
+        final AtomicInteger cutoff;
+        int found;
+
+        Search(int[] cards, int len, int count, Consumer<int[]> sink, int[] position, int[] set, int with,
+               int lo, int hi, AtomicInteger cutoff) {
+            this.cards = cards;
+            this.len = len;
+            this.count = count;
+            this.sink = sink;
+            this.position = position;
+            this.picked = new int[set.length];
+            this.set = set;
+            this.with = with;
+            this.lo = lo;
+            this.hi = hi;
+            this.cutoff = cutoff;
+        }
+
+        /**
+         * @return - true iff the search found enough sets, or a parallel search does not need its results anymore.
+         */
+        boolean done() {
+            return found >= count || cutoff != null && cutoff.get() < lo;
+        }
+    }
+
+    private void searchRange(Search search) {
+        if (config.featureSize == 3) {
+            if (search.with < 0) completePairs(search);
+            else completeWith(search);
+        } else if (search.with < 0) pick(search, 0, search.lo, 0);
+        else {
+            search.picked[0] = search.with;
+            pick(search, 1, search.lo, packedCards[search.with]);
+        }
+    }
+
+    /**
+     * Finds sets of 3-valued features by walking all pairs of cards and looking up the single card that completes
+     * each pair. The sets are found in the same (lexicographic index) order as the combinations search.
+     */
+    private void completePairs(Search search) {
+        int[] cards = search.cards;
+        for (int i = search.lo; i < Math.min(search.hi, search.len - 2) && !search.done(); ++i)
+            for (int j = i + 1; j < search.len - 1; ++j) {
+                int third = thirdCard(cards[i], cards[j]);
+                // only count each set once: from the pair of its two first cards
+                if (search.position[third] > j + 1) {
+                    if (search.sink != null) search.sink.accept(sorted(cards[i], cards[j], third, search.set));
+                    if (++search.found >= search.count) return;
+                }
+            }
+    }
+
+    /**
+     * Finds sets of 3-valued features containing the given card by completing it with every card in cards.
+     */
+    private void completeWith(Search search) {
+        int[] cards = search.cards;
+        for (int i = search.lo; i < Math.min(search.hi, search.len - 1) && !search.done(); ++i) {
+            int third = thirdCard(search.with, cards[i]);
+            if (search.position[third] > i + 1) {
+                if (search.sink != null) search.sink.accept(sorted(search.with, cards[i], third, search.set));
+                ++search.found;
+            }
+        }
+    }
+
+    /**
+     * Computes the only card that forms a legal set with the two given cards (3-valued features only): for every
+     * feature the third value is (-a-b) mod 3.
+     *
+     * @param first  - the first card id.
+     * @param second - the second card id.
+     * @return - the id of the card completing the set.
+     */
+    private int thirdCard(int first, int second) {
+        int third = 0;
+        for (int i = 0, weight = 1; i < config.featureCount; ++i, weight *= 3) {
+            third += ((6 - first % 3 - second % 3) % 3) * weight;
+            first /= 3;
+            second /= 3;
+        }
+        return third;
+    }
+
+    private static int[] sorted(int a, int b, int c, int[] set) {
+        int t;
+        if (a > b) { t = a; a = b; b = t; }
+        if (b > c) { t = b; b = c; c = t; }
+        if (a > b) { t = a; a = b; b = t; }
+        set[0] = a;
+        set[1] = b;
+        set[2] = c;
+        return set;
+    }
+
+    /**
+     * Finds sets of any feature size k (k > 3) by backtracking. Cards are picked in increasing position order, and
+     * the union of their packed features is kept: after picking j cards every feature field must have either one bit
+     * set (the same value so far) or j bits set (different values so far), so any partial selection that breaks a
+     * feature is pruned immediately. Once k - 1 cards are picked the last card is fully determined (every feature
+     * either repeats the common value or takes the only value missing) and is looked up in O(1).
+     * Complexity: O(C(n, k - 1) * d) in the worst case for n cards and d features, but since pruning discards most
+     * partial selections, and a search for a single set stops at the first one found, it is typically much less.
+     * The sets are found in the same (lexicographic index) order as the combinations search.
+     *
+     * @param depth - the number of cards picked so far.
+     * @param from  - the first position in the cards array that may be picked.
+     * @param union - the union of the packed features of the picked cards.
+     */
+    private void pick(Search search, int depth, int from, long union) {
+        int k = config.featureSize;
+        if (depth == k - 1) {
+            int last = completeSet(union);
+            if (last >= 0 && search.position[last] > from) {
+                ++search.found;
+                if (search.sink != null) {
+                    System.arraycopy(search.picked, 0, search.set, 0, k - 1);
+                    search.set[k - 1] = last;
+                    Arrays.sort(search.set, 0, k);
+                    search.sink.accept(search.set);
+                }
+            }
+            return;
+        }
+
+        // the first card picked from the array is limited to the search range, and room is left for the remaining
+        // picks and for the last card
+        boolean first = depth == (search.with < 0 ? 0 : 1);
+        int to = first ? Math.min(search.hi, search.len - (k - depth) + 1) : search.len - (k - depth) + 1;
+        for (int i = from; i < to && !search.done(); ++i) {
+            long next = union | packedCards[search.cards[i]];
+            if (depth + 1 >= 2 && !consistent(next, depth + 1)) continue;
+            search.picked[depth] = search.cards[i];
+            pick(search, depth + 1, i + 1, next);
+        }
+    }
+
+    /**
+     * @return - true iff every feature field of union has either one bit or picked bits set.
+     */
+    private boolean consistent(long union, int picked) {
+        long fieldMask = (1L << config.featureSize) - 1;
+        for (int i = 0; i < config.featureCount; ++i) {
+            int values = Long.bitCount((union >>> (i * config.featureSize)) & fieldMask);
+            if (values != 1 && values != picked) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Computes the only card that completes a set whose other k - 1 cards have the given features union.
+     *
+     * @return - the id of the completing card, or -1 if there is none.
+     */
+    private int completeSet(long union) {
+        long fieldMask = (1L << config.featureSize) - 1;
+        int card = 0;
+        for (int i = 0; i < config.featureCount; ++i) {
+            long field = (union >>> (i * config.featureSize)) & fieldMask;
+            int values = Long.bitCount(field);
+            if (values == config.featureSize - 1) field ^= fieldMask;
+            else if (values != 1) return -1;
+            card += Long.numberOfTrailingZeros(field) * featureWeights[i];
+        }
+        return card;
+    }
+
+    /**
+     * Runs a search on the fork/join pool: the range of positions of the first card of a set is split recursively,
+     * every leaf range is searched sequentially and the results are then merged in range order, so they are the same
+     * (and in the same order) as those of a sequential search. Once a leaf finds count sets on its own, every leaf
+     * after it is cancelled.
+     */
+    private int searchParallel(int[] cards, int len, int count, Consumer<int[]> sink, int with, int[] position) {
+        int grain = Math.max(1, len / (pool.getParallelism() * 8));
+        SearchTask root = new SearchTask(cards, len, count, sink != null, with, position, 0, len, grain,
+                new AtomicInteger(Integer.MAX_VALUE));
+        pool.invoke(root);
+
+        int[] found = new int[1];
+        root.forEachLeaf(leaf -> {
+            if (found[0] >= count || leaf.sets == null && sink != null) return;
+            if (sink == null) found[0] += Math.min(leaf.found, count - found[0]);
+            else for (int i = 0; i < leaf.sets.size() && found[0] < count; ++i, ++found[0])
+                sink.accept(leaf.sets.get(i));
+        });
+        return found[0];
+    }
+
+    /**
+     * A fork/join task searching for the sets whose first card is in positions [lo, hi).
+     */
+    private final class SearchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] cards;
+        private final int len;
+        private final int count;
+        private final boolean collect;
+        private final int with;
+        private final int[] position;
+        private final int lo;
+        private final int hi;
+        private final int grain;
+        private final AtomicInteger cutoff;
+
+        private SearchTask left, right;
+        private int found;
+        private List<int[]> sets;
+
+        SearchTask(int[] cards, int len, int count, boolean collect, int with, int[] position, int lo, int hi,
+                   int grain, AtomicInteger cutoff) {
+            this.cards = cards;
+            this.len = len;
+            this.count = count;
+            this.collect = collect;
+            this.with = with;
+            this.position = position;
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+            this.cutoff = cutoff;
+        }
+
+        @Override
+        protected void compute() {
+            if (cutoff.get() < lo) return;
+            if (hi - lo > grain) {
+                int mid = (lo + hi) >>> 1;
+                left = new SearchTask(cards, len, count, collect, with, position, lo, mid, grain, cutoff);
+                right = new SearchTask(cards, len, count, collect, with, position, mid, hi, grain, cutoff);
+                invokeAll(left, right);
+                return;
+            }
+
+            sets = collect ? new ArrayList<>() : null;
+            Consumer<int[]> sink = collect ? set -> sets.add(set.clone()) : null;
+            Search search = new Search(cards, len, count, sink, position,
+                    new int[Math.max(config.featureSize, 3)], with, lo, hi, cutoff);
+            searchRange(search);
+            found = search.found;
+            if (found >= count) cutoff.accumulateAndGet(lo, Math::min);
+        }
+
+        void forEachLeaf(Consumer<SearchTask> consumer) {
+            if (left != null) {
+                left.forEachLeaf(consumer);
+                right.forEachLeaf(consumer);
+            } else consumer.accept(this);
+        }
+    }
+
+    /**
+     * Finds sets by testing every combination of cards, in lexicographic order.
+     *
+     * @param with - a card that is added to every combination, or -1 for none.
+     */
+    private int findSetsByCombinations(int[] cards, int len, int count, Consumer<int[]> sink, int with) {
+        int r = with < 0 ? config.featureSize : config.featureSize - 1;
+        if (len < r || r <= 0 || count <= 0) return 0;
         int[] combination = new int[r];
+        int[] set = new int[config.featureSize];
+        int found = 0;
 
         for (int i = 0; i < r; ++i)
             combination[i] = i;
 
-        while (combination[r - 1] < deck.size()) {
-            int[] cards = Arrays.stream(combination).map(deck::get).sorted().toArray();
-            if (testSet(cards)) {
-                sets.add(cards);
-                if (sets.size() >= count) return sets;
+        while (combination[r - 1] < len) {
+            for (int i = 0; i < r; ++i)
+                set[i] = cards[combination[i]];
+            if (with >= 0) set[r] = with;
+            Arrays.sort(set);
+            if (testSet(set)) {
+                if (sink != null) sink.accept(set);
+                if (++found >= count) return found;
             }
 
             // generate next combination in lexicographic order
             int t = r - 1;
-            while (t != 0 && combination[t] == n - r + t) --t;
+            while (t != 0 && combination[t] == len - r + t) --t;
             combination[t]++;
             for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
         }
-        return sets;
+        return found;
+    }
+
+    /**
+     * Shuts down the pool of parallel searches if it was created here (a pool passed to the constructor is left to its
+     * owner). Searches after that are sequential.
+     */
+    public void shutdown() {
+        if (ownsPool && pool != null) pool.shutdown();
     }
 
     public void spin() {
@@ -0,0 +1,50 @@
+package bguspl.set;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * A clock that only moves when it is advanced, used to run games in logical time (see Simulation).
+ */
+public class VirtualClock extends Clock {
+
+    private volatile long millis;
+
+    public VirtualClock(long millis) {
+        this.millis = millis;
+    }
+
+    /**
+     * Moves the clock forward.
+     *
+     * @param millis - the number of milliseconds to advance by.
+     */
+    public void advance(long millis) {
+        this.millis += millis;
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    /**
+     * @return - this clock (the time zone is ignored, only the milliseconds count).
+     */
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return this;
+    }
+}
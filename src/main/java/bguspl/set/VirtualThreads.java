@@ -0,0 +1,46 @@
+package bguspl.set;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Logger;
+
+/**
+ * This class creates virtual threads when the running JVM supports them (Java 21 or later). The game is built for
+ * Java 8, so the virtual thread API is reached by reflection.
+ */
+public class VirtualThreads {
+
+    /**
+     * A factory of virtual threads, or null if they are not supported.
+     */
+    private static final ThreadFactory FACTORY = virtualThreadFactory();
+
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return - true iff the running JVM supports virtual threads.
+     */
+    public static boolean available() {
+        return FACTORY != null;
+    }
+
+    /**
+     * Returns a factory of the threads to run the game on.
+     *
+     * @param virtual - true to use virtual threads (if supported).
+     * @param logger  - logs a warning if virtual threads are not supported.
+     * @return - a factory of virtual threads if requested and supported, or of platform threads otherwise.
+     */
+    public static ThreadFactory factory(boolean virtual, Logger logger) {
+        if (!virtual) return Thread::new;
+        if (available()) return FACTORY;
+        logger.warning("virtual threads require Java 21 or later, running on platform threads instead");
+        return Thread::new;
+    }
+}
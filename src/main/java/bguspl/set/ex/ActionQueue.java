@@ -0,0 +1,119 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class holds the key presses (slots) of a player waiting to be handled: a fixed capacity ring buffer of ints for a
+ * single producer (the thread pressing the keys: the input thread or the player's AI thread) and a single consumer (the
+ * player thread). It takes no locks and allocates nothing once created.
+ * The consumer polls for the next key press, and may block until there is one (see awaitNotEmpty). Every key press
+ * carries a stamp (e.g. the table's input epoch when the key was pressed), which the consumer reads after taking it
+ * (see stamp).
+ */
+public class ActionQueue {
+
+    /**
+     * Returned by poll when there is no key press to take.
+     */
+    public static final int EMPTY = -1;
+
+    private final int[] slots;
+    private final int[] stamps;
+
+    /**
+     * The stamp of the key press taken last.
+     * Note: only the consumer reads and writes it.
+     */
+    private int stamp;
+
+    /**
+     * The number of key presses taken and added so far (the next entry to take is at head, and the next one to add at
+     * tail, modulo the capacity).
+     * Note: only the consumer writes head, and only the producer writes tail.
+     */
+    private volatile long head;
+    private volatile long tail;
+
+    /**
+     * The consumer's thread while it is blocked in awaitNotEmpty (null otherwise).
+     */
+    private volatile Thread consumer;
+
+    /**
+     * @param capacity - the maximal number of key presses in the queue.
+     */
+    public ActionQueue(int capacity) {
+        slots = new int[capacity];
+        stamps = new int[capacity];
+    }
+
+    /**
+     * Adds a key press, unless the queue is full (called by the producer).
+     *
+     * @param slot  - the slot corresponding to the key pressed.
+     * @param stamp - the stamp of the key press.
+     * @return - true iff the key press was added.
+     */
+    public boolean offer(int slot, int stamp) {
+        long t = tail;
+        if (t - head == slots.length) return false;
+        slots[(int) (t % slots.length)] = slot;
+        stamps[(int) (t % slots.length)] = stamp;
+        tail = t + 1;
+        Thread waiting = consumer;
+        if (waiting != null) LockSupport.unpark(waiting);
+        return true;
+    }
+
+    /**
+     * Takes the next key press without blocking (called by the consumer).
+     *
+     * @return - the slot of the key pressed, or EMPTY if the queue is empty.
+     */
+    public int poll() {
+        long h = head;
+        if (h == tail) return EMPTY;
+        int slot = slots[(int) (h % slots.length)];
+        stamp = stamps[(int) (h % slots.length)];
+        head = h + 1;
+        return slot;
+    }
+
+    /**
+     * @return - the stamp of the key press taken last by poll (called by the consumer).
+     */
+    public int stamp() {
+        return stamp;
+    }
+
+    /**
+     * Parks until there is a key press in the queue, without taking it (called by the consumer). It also returns when
+     * the consumer is unparked by another thread or interrupted, so the caller can react to other events.
+     */
+    public void awaitNotEmpty() {
+        if (isEmpty()) {
+            consumer = Thread.currentThread();
+            if (isEmpty()) LockSupport.park(this);
+            consumer = null;
+        }
+    }
+
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    /**
+     * @return - the number of key presses in the queue.
+     */
+    public int size() {
+        long h = head;
+        return (int) (tail - h);
+    }
+
+    /**
+     * @return - the number of key presses that may be added before the queue is full.
+     */
+    public int remainingCapacity() {
+        return slots.length - size();
+    }
+}
@@ -0,0 +1,251 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A player for load tests of the dealer: instead of handling key presses, its thread claims sets directly on the table
+ * (replacing its tokens by tokens on the claimed cards) on a fixed schedule, a given share of them legal sets and the
+ * others not. Like any player it has a single set of tokens, so it claims again only once its previous claim got its
+ * verdict or was made stale (one of its cards was removed), and a claim that is due before then is made late: the time to the dealer's verdict is measured from the time the claim was due, not from
+ * the time it was made (see Verdicts), and the claims that could not be made at all before the next one was due are
+ * counted as missed. Freezes are not observed.
+ */
+public class ClaimProducer extends Player {
+
+    /**
+     * How long to wait before checking again whether a claim was dropped or the table accepts input.
+     */
+    private static final long WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * The time between two claims (0 to claim as fast as the verdicts allow).
+     */
+    private final long periodNanos;
+
+    /**
+     * The probability of a claim being a legal set.
+     */
+    private final double legalShare;
+
+    private final Verdicts verdicts;
+
+    /**
+     * The time the claim waiting for a verdict was due (0 if there is none).
+     */
+    private final AtomicLong claimNanos = new AtomicLong();
+
+    /**
+     * The number of claims made, the number of them that got no verdict (the dealer drops a claim if one of its cards
+     * was removed from the table before the claim was handled) and the number of claims missed (due while a previous
+     * claim was being made late).
+     * Note: only the producer's thread writes them.
+     */
+    private volatile long claims;
+    private volatile long dropped;
+    private volatile long missed;
+
+    /**
+     * @param claimsPerSecond - the rate of the producer's claims (0 to claim as fast as the verdicts allow).
+     * @param legalShare      - the probability of a claim being a legal set.
+     * @param verdicts        - records the verdicts (shared by all the producers of the game).
+     */
+    public ClaimProducer(Env env, Dealer dealer, Table table, int id, double claimsPerSecond, double legalShare,
+                         Verdicts verdicts) {
+        super(env, dealer, table, id, true);
+        this.periodNanos = claimsPerSecond > 0 ? Math.round(1e9 / claimsPerSecond) : 0;
+        this.legalShare = legalShare;
+        this.verdicts = verdicts;
+    }
+
+    /**
+     * The producer's thread starts here: makes every claim when it is due, or as soon as the previous claim got its
+     * verdict and the table accepts input. A claim made late still counts from the time it was due, and the claims
+     * that became due meanwhile are missed (the producer does not make up for them). Without a rate, every claim is due
+     * when it is made.
+     */
+    @Override
+    public void run() {
+        bindPlayerThread();
+        Env env = getEnv();
+        Table table = getTable();
+        env.logger.info("Thread " + Thread.currentThread().getName() + " starting.");
+        Random random = ThreadLocalRandom.current();
+        int[] set = new int[env.config.featureSize];
+        int[] slots = new int[env.config.featureSize];
+        long next = System.nanoTime();
+        while (!isTerminated()) {
+            long due = next;
+            for (long left = due - System.nanoTime(); left > 0 && !isTerminated(); left = due - System.nanoTime())
+                LockSupport.parkNanos(this, left);
+            awaitVerdict();
+            while (!table.acceptsInput() && !isTerminated())
+                LockSupport.parkNanos(this, WAIT_NANOS);
+            if (isTerminated()) break;
+
+            boolean chosen = random.nextDouble() < legalShare ? legalSlots(random, set, slots)
+                    : illegalSlots(random, set, slots);
+            if (!chosen) {
+                LockSupport.parkNanos(this, WAIT_NANOS); // the table is being changed, the claim is still due
+                continue;
+            }
+            long now = System.nanoTime();
+            if (periodNanos > 0) {
+                long late = (now - due) / periodNanos;
+                missed = missed + late;
+                next = due + (late + 1) * periodNanos;
+            } else {
+                due = next = now;
+            }
+            claim(slots, due);
+        }
+        env.logger.info("Thread " + Thread.currentThread().getName() + " terminated.");
+    }
+
+    /**
+     * Waits until the dealer gives its verdict on the pending claim, or drops it.
+     */
+    private void awaitVerdict() {
+        while (claimNanos.get() != 0 && getTable().countTokens(id) == getEnv().config.featureSize && !isTerminated())
+            LockSupport.parkNanos(this, WAIT_NANOS);
+        if (claimNanos.getAndSet(0) != 0 && !isTerminated())
+            dropped = dropped + 1;
+    }
+
+    /**
+     * Chooses the slots of a legal set on the table.
+     *
+     * @return - false iff there is no legal set on the table (or it was removed meanwhile).
+     */
+    private boolean legalSlots(Random random, int[] set, int[] slots) {
+        Table table = getTable();
+        if (!table.tableSets.sample(random, set)) return false;
+        for (int i = 0; i < set.length; i++) {
+            slots[i] = table.cardToSlot[set[i]];
+            if (slots[i] == Table.EMPTY) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Chooses the slots of cards on the table that are not a legal set (gives up after a few random choices).
+     *
+     * @return - false iff no such cards were found.
+     */
+    private boolean illegalSlots(Random random, int[] cards, int[] slots) {
+        Env env = getEnv();
+        Table table = getTable();
+        for (int attempt = 0; attempt < 10; attempt++) {
+            boolean found = true;
+            for (int i = 0; i < slots.length && found; i++) {
+                slots[i] = random.nextInt(env.config.tableSize);
+                cards[i] = table.slotToCard[slots[i]];
+                for (int j = 0; j < i; j++)
+                    found &= slots[j] != slots[i];
+                found &= cards[i] != Table.EMPTY;
+            }
+            if (found && !env.util.testSet(cards)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Replaces the producer's tokens with tokens on the given slots (the last one placed queues the claim).
+     *
+     * @param due - the time the claim was due.
+     */
+    private void claim(int[] slots, long due) {
+        Table table = getTable();
+        for (int slot = 0; slot < getEnv().config.tableSize; slot++)
+            if (table.hasToken(id, slot)) table.removeToken(id, slot);
+        claims = claims + 1;
+        claimNanos.set(due);
+        for (int slot : slots)
+            table.placeToken(id, slot);
+    }
+
+    /**
+     * Records the verdict before the producer's thread is unparked (see Player.point and Player.penalty).
+     */
+    @Override
+    public void point() {
+        verdict(true);
+        super.point();
+    }
+
+    @Override
+    public void penalty() {
+        verdict(false);
+        super.penalty();
+    }
+
+    private void verdict(boolean legal) {
+        long due = claimNanos.getAndSet(0);
+        if (due != 0) verdicts.record(System.nanoTime() - due, legal);
+    }
+
+    public long claims() {
+        return claims;
+    }
+
+    public long dropped() {
+        return dropped;
+    }
+
+    public long missed() {
+        return missed;
+    }
+
+    /**
+     * This class records the dealer's verdicts on the claims of all the producers of a game, and the time from every
+     * claim to its verdict.
+     * Note: only the dealer's thread records verdicts.
+     */
+    public static class Verdicts {
+
+        private long[] latencies = new long[1024];
+        private volatile int count;
+        private volatile long legal;
+
+        void record(long nanos, boolean legal) {
+            if (count == latencies.length)
+                latencies = Arrays.copyOf(latencies, 2 * count);
+            latencies[count] = nanos;
+            if (legal) this.legal = this.legal + 1;
+            count = count + 1;
+        }
+
+        /**
+         * @return - the number of verdicts so far.
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * @return - the number of legal sets among the claims that got a verdict so far.
+         */
+        public long legal() {
+            return legal;
+        }
+
+        /**
+         * @param p - the percentile (between 0 and 1).
+         * @return - the time from claim to verdict (in nanoseconds) that the given share of the verdicts took at most
+         * (0 if there were no verdicts).
+         * @pre - the dealer's thread is finished.
+         */
+        public long percentile(double p) {
+            if (count == 0) return 0;
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted[Math.max((int) Math.ceil(p * count) - 1, 0)];
+        }
+    }
+}
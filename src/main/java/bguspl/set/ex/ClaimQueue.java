@@ -0,0 +1,118 @@
+package bguspl.set.ex;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * This class holds the set claims waiting for the dealer's verdict. Any number of player threads may add claims
+ * without locking, and the dealer (the single consumer) drains the pending claims in batches, in arrival order.
+ * It also keeps metrics of the queue depth and of the drained batch sizes.
+ */
+public class ClaimQueue {
+
+    /**
+     * The pending claims (each one holds the claimed card ids followed by the claiming player's id).
+     */
+    private final Queue<int[]> claims = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of pending claims, and the highest it has been.
+     */
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+
+    /**
+     * The number of claims added, and the number of non-empty batches drained (only updated by the consumer).
+     */
+    private final AtomicLong claimsCount = new AtomicLong();
+    private volatile long batches;
+    private volatile int maxBatch;
+
+    /**
+     * Adds a claim to the queue.
+     *
+     * @param claim - the claimed card ids followed by the claiming player's id.
+     */
+    public void add(int[] claim) {
+        claims.offer(claim);
+        claimsCount.incrementAndGet();
+        int current = depth.incrementAndGet();
+        maxDepth.accumulateAndGet(current, Math::max);
+    }
+
+    /**
+     * Passes the claims pending when called to the consumer, in arrival order. Claims added while draining are left to
+     * the next call, so a drain ends even while claims keep arriving.
+     * Note: should only be called by a single (consumer) thread.
+     *
+     * @param consumer - handles each claim.
+     * @return - the number of claims drained.
+     */
+    public int drain(Consumer<int[]> consumer) {
+        int pending = depth.get();
+        int batch = 0;
+        for (int[] claim; batch < pending && (claim = claims.poll()) != null; ) {
+            depth.decrementAndGet();
+            ++batch;
+            consumer.accept(claim);
+        }
+        if (batch > 0) {
+            batches = batches + 1;
+            if (batch > maxBatch) maxBatch = batch;
+        }
+        return batch;
+    }
+
+    /**
+     * @return - true iff there are no pending claims.
+     */
+    public boolean isEmpty() {
+        return claims.isEmpty();
+    }
+
+    /**
+     * @return - the number of pending claims.
+     */
+    public int size() {
+        return depth.get();
+    }
+
+    /**
+     * @return - the highest number of pending claims so far.
+     */
+    public int maxDepth() {
+        return maxDepth.get();
+    }
+
+    /**
+     * @return - the total number of claims added so far.
+     */
+    public long claims() {
+        return claimsCount.get();
+    }
+
+    /**
+     * @return - the number of non-empty batches drained so far.
+     */
+    public long batches() {
+        return batches;
+    }
+
+    /**
+     * @return - the largest batch drained so far.
+     */
+    public int maxBatch() {
+        return maxBatch;
+    }
+
+    /**
+     * @return - the average number of claims per drained batch.
+     */
+    public double averageBatch() {
+        long drained = batches;
+        return drained == 0 ? 0 : (double) (claimsCount.get() - depth.get()) / drained;
+    }
+}
@@ -0,0 +1,35 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+/**
+ * This interface decides the key presses of a computer player: after each delay the player presses the keys of the
+ * next move.
+ */
+public interface ComputerStrategy {
+
+    /**
+     * @return - the number of milliseconds to wait before the next move.
+     */
+    long nextDelayMillis();
+
+    /**
+     * Decides the next move.
+     *
+     * @param player - the id of the player.
+     * @param keys   - an array to fill with the slots to press (in order), of length at least 2 * set size.
+     * @return - the number of slots to press.
+     */
+    int nextMove(int player, int[] keys);
+
+    /**
+     * Creates the strategy chosen in the configuration (see Config.computerStrategy).
+     */
+    static ComputerStrategy create(Env env, Table table) {
+        if (env.config.computerStrategy.equalsIgnoreCase("Solver"))
+            return new SolverStrategy(env, table);
+        if (!env.config.computerStrategy.equalsIgnoreCase("Random"))
+            env.logger.warning("unknown computer strategy " + env.config.computerStrategy + ", using Random");
+        return new RandomStrategy(env);
+    }
+}
@@ -2,10 +2,9 @@ package bguspl.set.ex;
 
 import bguspl.set.Env;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * This class manages the dealer's threads and data
@@ -24,9 +23,30 @@ public class Dealer implements Runnable {
     private final Player[] players;
 
     /**
-     * The list of card ids that are left in the dealer's deck.
+     * The card ids that are left in the dealer's deck (the first deckSize entries, in no particular order).
      */
-    private final List<Integer> deck;
+    private final int[] deck;
+    private int deckSize;
+
+    /**
+     * True for every card id that is in the deck.
+     */
+    private final boolean[] inDeck;
+
+    /**
+     * The dealer's own source of randomness (so it does not contend with other threads over Math.random).
+     */
+    private final Random random = new Random();
+
+    /**
+     * The table's slots, shuffled whenever cards are removed in a random order.
+     */
+    private final int[] slotOrder;
+
+    /**
+     * Whether a legal set is left among the cards still in the game (in the deck or on the table).
+     */
+    private final SetWitness cardsInGame;
 
     /**
      * True iff game should be terminated.
@@ -42,14 +62,52 @@ public class Dealer implements Runnable {
 
     private boolean reset;
 
+    /**
+     * The players act only on cards that are displayed: after the dealer changes the table, the input stays closed
+     * until the user interface reports that the changes were shown (see placeCardsOnTable). The number of times the
+     * dealer asked for that report, the last of them reported, and the input epoch of the last ask.
+     * Note: only the dealer thread writes changesDealt and changesEpoch, and only the report writes changesShown.
+     */
+    private int changesDealt;
+    private volatile int changesShown;
+    private int changesEpoch = -1;
+
+    /**
+     * The players' threads (null until they are started).
+     */
+    private volatile Thread[] playerThreads;
+
+    /**
+     * Schedules the changes of the countdown and freeze displays, and the ends of the players' freezes (only the
+     * dealer thread uses it).
+     */
+    private final TimerWheel timers;
+    private final TimerWheel.Timeout countdownTimeout;
+
+    /**
+     * The next change of every player's freeze (created on the player's first freeze).
+     */
+    private final TimerWheel.Timeout[] freezeTimeouts;
+
 
     public Dealer(Env env, Table table, Player[] players) {
         this.env = env;
         this.table = table;
         this.players = players;
-        deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
+        deck = new int[env.config.deckSize];
+        inDeck = new boolean[env.config.deckSize];
+        cardsInGame = new SetWitness(env);
+        for (int card = 0; card < deck.length; card++) {
+            returnCard(card);
+            cardsInGame.add(card);
+        }
+        slotOrder = new int[env.config.tableSize];
+        for (int slot = 0; slot < slotOrder.length; slot++)
+            slotOrder[slot] = slot;
         reset = false;
-
+        timers = new TimerWheel(SECOND / 100, 128, env.clock.millis());
+        countdownTimeout = new TimerWheel.Timeout(this::updateCountdown);
+        freezeTimeouts = new TimerWheel.Timeout[players.length];
     }
 
     /**
@@ -58,10 +116,8 @@ public class Dealer implements Runnable {
     @Override
     public void run() {
         env.logger.info("Thread " + Thread.currentThread().getName() + " starting.");
-        for (Player p : players) {
-            Thread t = new Thread(p);
-            t.start();
-        }
+        table.dealerThread = Thread.currentThread();
+        startPlayers();
         while (!shouldFinish()) {
             placeCardsOnTable();
             timerLoop();
@@ -69,24 +125,39 @@ public class Dealer implements Runnable {
             removeAllCardsFromTable();
         }
         announceWinners();
+        env.logger.info("claims: " + table.setsToTest.claims() + " max queue depth: " + table.setsToTest.maxDepth()
+                + " batches: " + table.setsToTest.batches() + " max batch: " + table.setsToTest.maxBatch()
+                + " average batch: " + String.format("%.2f", table.setsToTest.averageBatch()));
         terminate();
         env.logger.info("Thread " + Thread.currentThread().getName() + " terminated.");
     }
 
+    /**
+     * Starts the players' threads.
+     */
+    protected void startPlayers() {
+        playerThreads = new Thread[players.length];
+        for (int i = 0; i < players.length; i++) {
+            playerThreads[i] = env.threads.newThread(players[i]);
+            playerThreads[i].start();
+        }
+    }
+
     /**
      * The inner loop of the dealer thread that runs as long as the countdown did not time out.
      */
     private void timerLoop() {
-        reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
+        reshuffleTime = env.clock.millis() + env.config.turnTimeoutMillis;
+        updateCountdown();
         if (env.config.hints) table.hints();
 
-        while (!terminate && System.currentTimeMillis() < reshuffleTime) {
+        while (!terminate && env.clock.millis() < reshuffleTime) {
             sleepUntilWokenOrTimeout();
-            updateTimerDisplay(reset);
-            reset = false;
             testSetDealer();
             //removeCardsFromTable();
             placeCardsOnTable();
+            updateTimerDisplay(reset);
+            reset = false;
         }
     }
 
@@ -94,15 +165,52 @@ public class Dealer implements Runnable {
      * Called when the game should be terminated.
      */
     public void terminate() {
-        while (!table.playersOrderList.isEmpty()) {
-            int tmp = table.playersOrderList.remove(table.playersOrderList.size() - 1);
+        while (true) {
+            int tmp;
+            synchronized (table.playersOrderList) { // the game may be terminated from another thread as well
+                if (table.playersOrderList.isEmpty()) break;
+                tmp = table.playersOrderList.remove(table.playersOrderList.size() - 1);
+            }
             players[tmp].terminate();
             try {
                 players[tmp].getPlayerThread().join();
             } catch (InterruptedException ignored) {
             }
         }
+        // players whose threads were started but did not run yet (if the game is terminated right away)
+        if (playerThreads != null) {
+            for (Player p : players)
+                p.terminate();
+            for (Thread t : playerThreads) {
+                try {
+                    t.join();
+                } catch (InterruptedException ignored) {
+                }
+            }
+        }
         terminate = true;
+        LockSupport.unpark(table.dealerThread);
+    }
+
+    /**
+     * @return - the number of sets claimed so far.
+     */
+    public long claims() {
+        return table.setsToTest.claims();
+    }
+
+    /**
+     * @return - the number of set claims waiting for the dealer's verdict.
+     */
+    public int pendingClaims() {
+        return table.setsToTest.size();
+    }
+
+    /**
+     * @return - the highest number of set claims that were waiting for the dealer's verdict so far.
+     */
+    public int maxPendingClaims() {
+        return table.setsToTest.maxDepth();
     }
 
     /**
@@ -111,7 +219,7 @@ public class Dealer implements Runnable {
      * @return true iff the game should be finished.
      */
     private boolean shouldFinish() {
-        return terminate || env.util.findSets(deck, 1).size() == 0;
+        return terminate || !cardsInGame.hasSet();
     }
 
     /**
@@ -122,75 +230,119 @@ public class Dealer implements Runnable {
     }
 
     public void removeCards(int arr[]) {
-        synchronized (table.ignoreAllPlayersActions) {
-            table.ignoreAllPlayersActions = true;
-        }
-        List<Integer> indexs = new ArrayList<Integer>();
+        table.closeInput();
+        int[] slots = new int[arr.length];
         for (int i = 0; i < arr.length; i++) {
-            indexs.add(table.cardToSlot[arr[i]]);
+            slots[i] = table.cardToSlot[arr[i]];
+            discardCard(arr[i]);
         }
 
-        for (int i = 0; i < arr.length; i++) {
-            int nextSlot = randomFromList(indexs);
-            table.removeCard(nextSlot);
-        }
+        shuffle(slots, slots.length);
+        for (int slot : slots)
+            table.removeCard(slot);
     }
 
     /**
-     * Check if any cards can be removed from the deck and placed on the table.
+     * Check if any cards can be removed from the deck and placed on the table, and open the input once the changes of
+     * the table are displayed. The dealer does not wait for the display: it asks the user interface to report when
+     * the changes are shown (which unparks it), and a later call opens the input.
      */
     protected void placeCardsOnTable() {
         if (terminate) return;
-        List<Integer> emptySlots = new ArrayList<>();
-        int i = 0;
-        for (Integer slot : table.slotToCard) {
-            if (slot == null)
-                emptySlots.add(i);
-            i++;
-        }
-        while (table.countCards() != (env.config.columns * env.config.rows) && deck.size() != 0) {
-            int nextRandomSlot = randomFromList(emptySlots);
-            int deckSize = deck.size();
-            int randomCardIndex = getRandomNumber(0, deckSize);
-            int randomCardId = deck.get(randomCardIndex);
-            table.placeCard(randomCardId, nextRandomSlot);
-            deck.remove(randomCardIndex);
+        boolean placed = false;
+        while (table.countFreeSlots() > 0 && deckSize != 0) {
+            int nextRandomSlot = table.freeSlot(getRandomNumber(0, table.countFreeSlots()));
+            table.placeCard(drawCard(), nextRandomSlot);
+            placed = true;
         }
-        synchronized (table.ignoreAllPlayersActions) {
-            table.ignoreAllPlayersActions = false;
+        if (table.acceptsInput()) return;
+        int epoch = table.inputEpoch();
+        if (placed || epoch != changesEpoch) { // the table was changed since the last ask
+            int dealt = ++changesDealt;
+            changesEpoch = epoch;
+            env.ui.whenChangesShown(() -> {
+                changesShown = dealt;
+                LockSupport.unpark(table.dealerThread);
+            });
         }
+        if (changesShown == changesDealt)
+            table.openInput();
     }
 
     /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some purpose.
+     * Sleep until a set is claimed (see Table.addSet), the game is terminated or the next deadline (the next change
+     * of the countdown or of a freeze display, or the reshuffle) is due.
+     * Note: parking (rather than waiting on a monitor) does not pin a virtual thread to its carrier.
      */
-    private void sleepUntilWokenOrTimeout() {
-        try {
-            Thread.sleep(SECOND / 100);
-        } catch (InterruptedException ignored) {
-        }
+    protected void sleepUntilWokenOrTimeout() {
+        long timeout = nextDeadline() - env.clock.millis();
+        if (timeout > 0 && !terminate && !reset && table.setsToTest.isEmpty())
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(timeout));
     }
 
     /**
-     * Reset and/or update the countdown and the countdown display.
+     * @return - the time of the next change in the countdown or freeze displays, of the end of a freeze or of the
+     * reshuffle (if sooner).
+     */
+    protected long nextDeadline() {
+        return Math.min(reshuffleTime, timers.nextDeadline());
+    }
+
+    /**
+     * Reset the countdown if needed, and perform the display changes and freeze ends that are due.
      */
     private void updateTimerDisplay(boolean reset) {
-        if (!reset) {
-            if (reshuffleTime - System.currentTimeMillis() < env.config.turnTimeoutWarningMillis) {
-                env.ui.setCountdown(Math.max(reshuffleTime - System.currentTimeMillis(), 0), true);
-            } else {
-                env.ui.setCountdown(reshuffleTime - System.currentTimeMillis(), false);
-            }
-        } else {
-            reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
-            env.ui.setCountdown(reshuffleTime - System.currentTimeMillis(), false);
+        if (reset) {
+            reshuffleTime = env.clock.millis() + env.config.turnTimeoutMillis;
+            updateCountdown();
+        } else if (!countdownTimeout.isScheduled())
+            updateCountdown();
+        timers.advance(env.clock.millis());
+        env.ui.flush();
+    }
+
+    /**
+     * Updates the countdown display and schedules its next change (the warning countdown displays hundredths of a
+     * second, whole seconds are displayed otherwise).
+     */
+    private void updateCountdown() {
+        long now = env.clock.millis();
+        long remaining = Math.max(reshuffleTime - now, 0);
+        boolean warn = remaining < env.config.turnTimeoutWarningMillis;
+        env.ui.setCountdown(remaining, warn);
+        if (remaining == 0) {
+            timers.cancel(countdownTimeout);
+            return;
         }
+        long next = warn ? now + SECOND / 100 : Math.min(now + remaining % SECOND + 1,
+                reshuffleTime - env.config.turnTimeoutWarningMillis + 1);
+        timers.schedule(countdownTimeout, Math.min(next, reshuffleTime));
+    }
 
-        for (Player p : players) {
-            if (p.playerTimer - System.currentTimeMillis() > 1000) {
-                env.ui.setFreeze(p.id, Math.max(p.playerTimer - System.currentTimeMillis(), 0));
-            } else
-                env.ui.setFreeze(p.id, 0);
+    /**
+     * Starts displaying a player's freeze (see Player.point and Player.penalty) and schedules its changes.
+     */
+    private void startFreeze(int id) {
+        if (freezeTimeouts[id] == null) {
+            Player p = players[id];
+            freezeTimeouts[id] = new TimerWheel.Timeout(() -> updateFreeze(p));
+        }
+        updateFreeze(players[id]);
+    }
+
+    /**
+     * Updates a frozen player's display, which changes every second until it is cleared when less than a second is
+     * left, and ends the freeze then.
+     */
+    private void updateFreeze(Player p) {
+        long now = env.clock.millis();
+        long frozen = p.playerTimer - now;
+        if (frozen > SECOND) {
+            env.ui.setFreeze(p.id, frozen);
+            timers.schedule(freezeTimeouts[p.id], now + frozen % SECOND + 1);
+        } else {
+            env.ui.setFreeze(p.id, 0);
+            p.unfreeze();
         }
     }
 
@@ -198,21 +350,15 @@ public class Dealer implements Runnable {
      * Returns all the cards from the table to the deck.
      */
     protected void removeAllCardsFromTable() {
-        synchronized (table.ignoreAllPlayersActions) {
-            table.ignoreAllPlayersActions = true;
-        }
-        List<Integer> indexs = new ArrayList<Integer>();
-        for (int i = 0; i < env.config.tableSize; i++) {
-            indexs.add(i);
-        }
-        while (!indexs.isEmpty()) {
-            int nextRandomSlot = randomFromList(indexs);
-            if (table.slotToCard[nextRandomSlot] != null) {
-                deck.add(table.slotToCard[nextRandomSlot]);
-                table.removeCard(nextRandomSlot);
+        table.closeInput();
+        shuffle(slotOrder, slotOrder.length);
+        for (int slot : slotOrder) {
+            if (table.slotToCard[slot] != Table.EMPTY) {
+                returnCard(table.slotToCard[slot]);
+                table.removeCard(slot);
             }
-            reset = true;
         }
+        reset = true;
     }
 
     /**
@@ -242,55 +388,110 @@ public class Dealer implements Runnable {
     }
 
 
+    /**
+     * Handles the pending set claims, in arrival order (claims made meanwhile are handled on the next call).
+     */
     public void testSetDealer() {
-        if (!table.setsToTest.isEmpty()) {
-            synchronized (table.setsToTest) {
-                int[] tmp = table.setsToTest.remove(0);
-                int id = tmp[3];
-                if (table.playersTokens[id].size() == 3) {
-                    int[] toTest = new int[3];
-                    for (int i = 0; i < 3; i++) {
-                        toTest[i] = tmp[i];
-                    }
-                    boolean ans = env.util.testSet(toTest);
-                    if (ans) {
-                        if (deck.size() > 0)
-                            reset = true;
-                        players[id].point();
-                        table.playersTested[id] = true;
-                        removeCards(toTest);
-                        existingSets();
-
-                    } else {
-                        reset = false;
-                        players[id].penalty();
-                        table.playersTested[id] = true;
-                    }
-                }
-            }
+        table.setsToTest.drain(this::testClaim);
+    }
+
+    /**
+     * Checks a set claim and awards a point or a penalty to the claiming player. Claims that were made stale by an
+     * earlier verdict (the player's tokens or one of the claimed cards were removed since) are dropped.
+     *
+     * @param claim - the claimed card ids followed by the claiming player's id.
+     */
+    private void testClaim(int[] claim) {
+        int id = claim[3];
+        if (table.countTokens(id) != 3) return;
+        int[] toTest = new int[3];
+        for (int i = 0; i < 3; i++) {
+            int slot = table.cardToSlot[claim[i]];
+            if (slot == Table.EMPTY || table.slotToCard[slot] != claim[i]) return;
+            toTest[i] = claim[i];
+        }
+
+        boolean ans = env.util.testSet(toTest);
+        if (ans) {
+            if (deckSize > 0)
+                reset = true;
+            players[id].point();
+            table.playersTested[id] = true;
+            startFreeze(id);
+            removeCards(toTest);
+            existingSets();
+
+        } else {
+            players[id].penalty();
+            table.playersTested[id] = true;
+            startFreeze(id);
         }
     }
 
     public void existingSets() {
-        List deckAndTableCards = new ArrayList<>(deck);
-        for (Integer i : table.slotToCard) {
-            if (i != null)
-                deckAndTableCards.add(i);
-        }
-        if (env.util.findSets(deckAndTableCards, 1).size() == 0) {
+        if (!cardsInGame.hasSet()) {
             if (env.config.turnTimeoutMillis <= 0)
                 terminate();
         }
     }
 
     public int getRandomNumber(int min, int max) {
-        return (int) ((Math.random() * (max - min)) + min);
+        return min + random.nextInt(max - min);
     }
 
-    private Integer randomFromList(List<Integer> list) {
-        int len = list.size();
-        int nextRandomSlot = getRandomNumber(0, len);
-        return (list.remove(nextRandomSlot));
+    /**
+     * Removes a random card from the deck (a step of a Fisher-Yates shuffle: the last card in the deck takes the
+     * drawn card's place).
+     *
+     * @return - the card id drawn.
+     * @pre - the deck is not empty.
+     */
+    private int drawCard() {
+        int i = random.nextInt(deckSize);
+        int card = deck[i];
+        deck[i] = deck[--deckSize];
+        deck[deckSize] = card;
+        inDeck[card] = false;
+        return card;
+    }
+
+    /**
+     * Takes a card of a legal set claimed out of the game.
+     *
+     * @param card - the card id.
+     */
+    protected void discardCard(int card) {
+        cardsInGame.remove(card);
+    }
+
+    /**
+     * Puts a card back in the deck (unless it is already there).
+     *
+     * @param card - the card id to return.
+     */
+    protected void returnCard(int card) {
+        if (inDeck[card]) return;
+        inDeck[card] = true;
+        deck[deckSize++] = card;
+    }
+
+    /**
+     * Shuffles the first len entries of an array in place (Fisher-Yates).
+     */
+    private void shuffle(int[] arr, int len) {
+        for (int i = len - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = arr[i];
+            arr[i] = arr[j];
+            arr[j] = tmp;
+        }
+    }
+
+    /**
+     * @return - the number of cards left in the deck.
+     */
+    public int countDeckCards() {
+        return deckSize;
     }
 
 }
@@ -0,0 +1,33 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+/**
+ * A dealer for load tests (see ClaimProducer): the cards of a legal set claimed go back to the deck instead of leaving
+ * the game, and the table is reshuffled as soon as it has no legal set, so the game goes on (with legal sets to claim)
+ * until it is terminated.
+ */
+public class LoadDealer extends Dealer {
+
+    private final Table table;
+
+    public LoadDealer(Env env, Table table, Player[] players) {
+        super(env, table, players);
+        this.table = table;
+    }
+
+    @Override
+    protected void discardCard(int card) {
+        returnCard(card);
+    }
+
+    @Override
+    protected void placeCardsOnTable() {
+        super.placeCardsOnTable();
+        // (the table stays empty once the game is terminated)
+        while (!table.hasSet() && table.countCards() > 0) {
+            removeAllCardsFromTable();
+            super.placeCardsOnTable();
+        }
+    }
+}
@@ -2,8 +2,9 @@ package bguspl.set.ex;
 
 import bguspl.set.Env;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * This class manages the players' threads and data
@@ -31,12 +32,12 @@ public class Player implements Runnable {
     /**
      * The thread representing the current player.
      */
-    private Thread playerThread;
+    private volatile Thread playerThread;
 
     /**
      * The thread of the AI (computer) player (an additional thread used to generate key presses).
      */
-    private Thread aiThread;
+    private volatile Thread aiThread;
 
     /**
      * True iff the player is human (not a computer player).
@@ -53,17 +54,27 @@ public class Player implements Runnable {
      */
     private int score;
 
-    private BlockingQueue<Integer> actionQueue;
+    /**
+     * The key presses waiting to be handled by the player thread.
+     */
+    private final ActionQueue actionQueue;
 
     private volatile long sleepingTime;
 
-    protected long playerTimer;
+    /**
+     * Decides the key presses of a computer player (null for a human player), and the keys of its current move.
+     */
+    private final ComputerStrategy strategy;
+    private final int[] keys;
+    private int keysCount;
 
-    Integer dealerPlayerLock;
+    /**
+     * The time of the next move of a computer player in a simulated game.
+     */
+    private long nextMoveMillis;
 
-    Integer terminateLock;
+    protected long playerTimer;
 
-    Integer AiLock;
 
 
     /**
@@ -80,13 +91,11 @@ public class Player implements Runnable {
         this.table = table;
         this.id = id;
         this.human = human;
-        actionQueue = new LinkedBlockingQueue<>(3);
+        actionQueue = new ActionQueue(3);
         sleepingTime = 0;
         playerTimer = 0;
-        dealerPlayerLock = 0;
-        terminateLock = 0;
-        AiLock = 0;
-
+        strategy = human ? null : ComputerStrategy.create(env, table);
+        keys = new int[2 * env.config.featureSize];
     }
 
     /**
@@ -104,32 +113,17 @@ public class Player implements Runnable {
 
         while (!terminate) {
 
-            if (!actionQueue.isEmpty() && table.playersTokens[id].size() < 3 || (!actionQueue.isEmpty() && table.playersTokens[id].size() == 3 && table.playersTested[id])) { // want also && sleeping time = 0.
-                int slot = actionQueue.poll();
-                table.keyPressed(id, slot);
-            }
-
-            if (sleepingTime > 0 && !terminate) {
-                try {
-                    playerThread.sleep(sleepingTime);
-                } catch (Exception e) {
-                }
-                sleepingTime = 0;
-            }
+            if (sleepingTime == 0) handleAction();
 
-            synchronized (dealerPlayerLock) {
-                synchronized (terminateLock) {  // maybe redundent
-                    if (actionQueue.isEmpty() && sleepingTime == 0 && !terminate) {
-                        try {
-                            dealerPlayerLock.wait();
-                        } catch (InterruptedException exception) {
-                        }
-                    }
-                }
-            }
+            // park until a key press (see ActionQueue.offer), the end of a freeze (see unfreeze) or termination
+            // (parking does not pin a virtual thread)
+            if (sleepingTime > 0 && !terminate)
+                LockSupport.park(this);
+            else if (!terminate)
+                actionQueue.awaitNotEmpty();
 
         }
-        if (!human) try {
+        while (!human && aiThread.isAlive()) try {
             aiThread.join();
         } catch (InterruptedException ignored) {
         }
@@ -137,38 +131,75 @@ public class Player implements Runnable {
     }
 
     /**
-     * Creates an additional thread for an AI (computer) player. The main loop of this thread repeatedly generates
-     * key presses. If the queue of key presses is full, the thread waits until it is not full.
+     * Handles the next key press in the queue, if the player may act on it.
+     */
+    private void handleAction() {
+        if (!actionQueue.isEmpty() && table.countTokens(id) < 3 || (!actionQueue.isEmpty() && table.countTokens(id) == 3 && table.playersTested[id])) { // want also && sleeping time = 0.
+            int slot = actionQueue.poll();
+            LockSupport.unpark(aiThread); // there is room for another key press
+            if (actionQueue.stamp() == table.inputEpoch()) // else the key was pressed before the table was changed
+                table.keyPressed(id, slot);
+        }
+    }
+
+    /**
+     * Does the work of a computer player's threads for one step of a simulated game (the player has no threads then):
+     * unless the player is frozen, makes the next move once its time has come, handling every key press at once.
+     */
+    void simulateStep() {
+        if (sleepingTime > 0) return;
+        if (env.clock.millis() < nextMoveMillis) return;
+        keysCount = strategy.nextMove(id, keys);
+        for (int i = 0; i < keysCount; i++) {
+            keyPressed(keys[i]);
+            handleAction();
+        }
+        nextMoveMillis = env.clock.millis() + strategy.nextDelayMillis();
+    }
+
+    /**
+     * Creates an additional thread for an AI (computer) player. The main loop of this thread waits until the player
+     * may press a key, waits the strategy's delay (its reaction time) and then presses the keys of the strategy's next
+     * move, each one once the player may press it.
      */
     private void createArtificialIntelligence() {
-        // note: this is a very, very smart AI (!)
-        aiThread = new Thread(() -> {
+        aiThread = env.threads.newThread(() -> {
             env.logger.info("Thread " + Thread.currentThread().getName() + " starting.");
+            table.wakeOnInput(id, Thread.currentThread());
             while (!terminate) {
-                if (actionQueue.size() < 3) {
-                    int slot = getRandomNumber(0, env.config.tableSize);
-                    keyPressed(slot);
+                awaitKeyPress();
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(strategy.nextDelayMillis());
+                for (long left = deadline - System.nanoTime(); left > 0 && !terminate; left = deadline - System.nanoTime())
+                    LockSupport.parkNanos(this, left);
+                keysCount = strategy.nextMove(id, keys);
+                for (int i = 0; i < keysCount && !terminate; i++) {
+                    awaitKeyPress();
+                    keyPressed(keys[i]);
                 }
-                // TODO implement player key press simulator
-                synchronized (AiLock) {
-                    try {
-                        AiLock.wait(10);
-                    } catch (InterruptedException ignored) {}
-               }
             }
+            table.wakeOnInput(id, null);
             env.logger.info("Thread " + Thread.currentThread().getName() + " terminated.");
-        }, "computer-" + id);
+        });
         aiThread.start();
     }
 
+    /**
+     * Blocks the AI thread until the player may press a key: there is room in the queue of key presses, the player is
+     * not frozen and the table accepts input (or the game is terminated). The thread does not poll: the player thread
+     * unparks it when it takes a key press or a freeze ends, and the table does when it starts accepting input.
+     */
+    private void awaitKeyPress() {
+        while (!terminate && (actionQueue.remainingCapacity() == 0 || sleepingTime > 0 || !table.acceptsInput()))
+            LockSupport.park(this);
+    }
+
     /**
      * Called when the game should be terminated.
      */
     public void terminate() {
-        synchronized (terminateLock) {
-            terminate = true;
-            playerThread.interrupt();
-        }
+        terminate = true;
+        LockSupport.unpark(playerThread);
+        LockSupport.unpark(aiThread);
     }
 
     /**
@@ -177,18 +208,9 @@ public class Player implements Runnable {
      * @param slot - the slot corresponding to the key pressed.
      */
     public void keyPressed(int slot) {
-        boolean validPress = false;
-
-        synchronized (table.ignoreAllPlayersActions) {
-            if (!table.ignoreAllPlayersActions && sleepingTime == 0) {
-                actionQueue.offer(slot);
-                validPress = true;
-            }
-        }
-        synchronized (dealerPlayerLock) {
-            if (validPress)
-                dealerPlayerLock.notifyAll();
-        }
+        int epoch = table.inputEpoch(); // a single read both gates the press and stamps it (see Table.acceptsInput)
+        if ((epoch & 1) == 0 && sleepingTime == 0)
+            actionQueue.offer(slot, epoch); // unparks the player thread if it awaits a key press
     }
 
 
@@ -202,22 +224,27 @@ public class Player implements Runnable {
         int ignored = table.countCards(); // this part is just for demonstration in the unit tests
         env.ui.setScore(id, ++score);
 
-        synchronized (dealerPlayerLock) {
-            sleepingTime = env.config.pointFreezeMillis;
-            playerTimer = System.currentTimeMillis() + sleepingTime + 1000;
-            dealerPlayerLock.notifyAll();
-        }
+        sleepingTime = env.config.pointFreezeMillis;
+        playerTimer = env.clock.millis() + sleepingTime + 1000;
+        LockSupport.unpark(playerThread);
+    }
+
+    /**
+     * Ends the player's freeze (called by the dealer when the freeze is over).
+     */
+    void unfreeze() {
+        sleepingTime = 0;
+        LockSupport.unpark(playerThread);
+        LockSupport.unpark(aiThread);
     }
 
     /**
      * Penalize a player and perform other related actions.
      */
     public void penalty() {
-        synchronized (dealerPlayerLock) {
-            sleepingTime = env.config.penaltyFreezeMillis;
-            playerTimer = System.currentTimeMillis() + sleepingTime + 1000;
-            dealerPlayerLock.notifyAll();
-        }
+        sleepingTime = env.config.penaltyFreezeMillis;
+        playerTimer = env.clock.millis() + sleepingTime + 1000;
+        LockSupport.unpark(playerThread);
     }
 
     public int score() {
@@ -225,13 +252,33 @@ public class Player implements Runnable {
     }
 
     public int getRandomNumber(int min, int max) {
-        return (int) ((Math.random() * (max - min)) + min);
+        return ThreadLocalRandom.current().nextInt(min, max);
     }
 
     public Thread getPlayerThread() {
         return playerThread;
     }
 
+    /**
+     * Makes the calling thread the player's thread, which point, penalty and terminate unpark (for subclasses that
+     * replace run).
+     */
+    protected void bindPlayerThread() {
+        playerThread = Thread.currentThread();
+    }
+
+    protected Env getEnv() {
+        return env;
+    }
+
+    protected Table getTable() {
+        return table;
+    }
+
+    protected boolean isTerminated() {
+        return terminate;
+    }
+
     public long getSleepingTime(){ // FOR TESTS ONLY!
         return  sleepingTime;
     }
@@ -240,7 +287,7 @@ public class Player implements Runnable {
         return terminate;
     }
 
-    public BlockingQueue<Integer> getActionQueue(){
+    public ActionQueue getActionQueue(){
         return actionQueue;
     }
 }
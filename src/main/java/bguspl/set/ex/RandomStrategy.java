@@ -0,0 +1,28 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A computer player strategy that presses a random slot every 10 milliseconds.
+ */
+public class RandomStrategy implements ComputerStrategy {
+
+    private final Env env;
+
+    public RandomStrategy(Env env) {
+        this.env = env;
+    }
+
+    @Override
+    public long nextDelayMillis() {
+        return 10;
+    }
+
+    @Override
+    public int nextMove(int player, int[] keys) {
+        keys[0] = ThreadLocalRandom.current().nextInt(env.config.tableSize);
+        return 1;
+    }
+}
@@ -0,0 +1,185 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * This class keeps track of all the legal sets among a changing group of cards (e.g. the cards on the table).
+ * The index is updated incrementally: adding a card only searches for the sets that contain it, and removing a card
+ * only drops its sets.
+ *
+ * @inv size() == the number of legal sets among the indexed cards
+ */
+public class SetIndex {
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * The number of cards in a set.
+     */
+    private final int setSize;
+
+    /**
+     * The cards currently in the index.
+     */
+    private final int[] cards;
+    private int cardsCount;
+
+    /**
+     * The position of every card in cards (-1 if the card is not in the index).
+     */
+    private final int[] cardPosition;
+
+    /**
+     * The sets found, setSize consecutive card ids per set.
+     */
+    private int[] sets;
+    private int setsCount;
+
+    /**
+     * The number of sets each card is part of.
+     */
+    private final int[] setsOfCard;
+
+    public SetIndex(Env env, int capacity) {
+        this.env = env;
+        setSize = env.config.featureSize;
+        cards = new int[capacity];
+        cardPosition = new int[env.config.deckSize];
+        Arrays.fill(cardPosition, -1);
+        sets = new int[setSize * Math.max(capacity, 1)];
+        setsOfCard = new int[env.config.deckSize];
+    }
+
+    /**
+     * Adds a card to the index, together with all the sets it forms with the cards already in the index.
+     *
+     * @param card - the card id to add.
+     */
+    public synchronized void add(int card) {
+        if (cardPosition[card] >= 0) return;
+        env.util.findSetsWith(card, cards, cardsCount, Integer.MAX_VALUE, this::addSet);
+        cardPosition[card] = cardsCount;
+        cards[cardsCount++] = card;
+    }
+
+    /**
+     * Removes a card from the index, together with all the sets it is part of.
+     *
+     * @param card - the card id to remove.
+     */
+    public synchronized void remove(int card) {
+        int position = cardPosition[card];
+        if (position < 0) return;
+
+        // swap the last card into the removed card's position
+        int last = cards[--cardsCount];
+        cards[position] = last;
+        cardPosition[last] = position;
+        cardPosition[card] = -1;
+
+        for (int i = 0; setsOfCard[card] > 0 && i < setsCount; ) {
+            if (setContains(i, card)) removeSet(i);
+            else ++i;
+        }
+    }
+
+    /**
+     * Removes all cards and sets from the index.
+     */
+    public synchronized void clear() {
+        while (cardsCount > 0) {
+            int card = cards[--cardsCount];
+            cardPosition[card] = -1;
+            setsOfCard[card] = 0;
+        }
+        setsCount = 0;
+    }
+
+    /**
+     * @return - the number of legal sets among the indexed cards.
+     */
+    public synchronized int size() {
+        return setsCount;
+    }
+
+    /**
+     * @return - true iff there is at least one legal set among the indexed cards.
+     */
+    public synchronized boolean hasSet() {
+        return setsCount > 0;
+    }
+
+    /**
+     * @param card - a card id.
+     * @return - true iff the card is part of at least one legal set in the index.
+     */
+    public synchronized boolean inSet(int card) {
+        return setsOfCard[card] > 0;
+    }
+
+    /**
+     * Copies one of the indexed sets.
+     *
+     * @param i   - the index of the set (between 0 and size() - 1).
+     * @param set - an array of (at least) the set size to copy the card ids (sorted) into.
+     * @return - the set array.
+     */
+    public synchronized int[] getSet(int i, int[] set) {
+        System.arraycopy(sets, i * setSize, set, 0, setSize);
+        return set;
+    }
+
+    /**
+     * Copies one of the indexed sets, chosen at random.
+     *
+     * @param random - the source of randomness.
+     * @param set    - an array of (at least) the set size to copy the card ids (sorted) into.
+     * @return - false iff there are no indexed sets.
+     */
+    public synchronized boolean sample(Random random, int[] set) {
+        if (setsCount == 0) return false;
+        getSet(random.nextInt(setsCount), set);
+        return true;
+    }
+
+    /**
+     * Passes every indexed set to the given consumer.
+     * Note: the array passed to the consumer is reused, copy it if it should be kept.
+     *
+     * @param consumer - receives the card ids (sorted) of every set.
+     */
+    public synchronized void forEach(Consumer<int[]> consumer) {
+        int[] set = new int[setSize];
+        for (int i = 0; i < setsCount; ++i)
+            consumer.accept(getSet(i, set));
+    }
+
+    private void addSet(int[] set) {
+        if ((setsCount + 1) * setSize > sets.length)
+            sets = Arrays.copyOf(sets, sets.length * 2);
+        System.arraycopy(set, 0, sets, setsCount * setSize, setSize);
+        for (int j = 0; j < setSize; ++j)
+            ++setsOfCard[set[j]];
+        ++setsCount;
+    }
+
+    private boolean setContains(int i, int card) {
+        for (int j = i * setSize; j < (i + 1) * setSize; ++j)
+            if (sets[j] == card) return true;
+        return false;
+    }
+
+    private void removeSet(int i) {
+        for (int j = i * setSize; j < (i + 1) * setSize; ++j)
+            --setsOfCard[sets[j]];
+        --setsCount;
+        System.arraycopy(sets, setsCount * setSize, sets, i * setSize, setSize);
+    }
+}
@@ -0,0 +1,117 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.Arrays;
+
+/**
+ * This class keeps track of whether there is a legal set among a group of cards that changes one card at a time (e.g.
+ * the cards that are still in the game). It remembers one set found among the cards (a witness), and only searches
+ * again once a card of the witness is removed. A search for a single set stops at the first set found, so while sets
+ * are plentiful it is short, but it is not O(1): every removal of a witness card costs a new search, and near the end of
+ * the game, when few or no sets are left, that search may scan all the remaining cards (a full search when no set is
+ * left at all, which is exactly the last check of every game).
+ * Note: this class is not thread safe, it is meant to be used by the dealer thread only.
+ *
+ * @inv hasSet() iff there is at least one legal set among the tracked cards
+ */
+public class SetWitness {
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * The cards currently tracked.
+     */
+    private final int[] cards;
+    private int cardsCount;
+
+    /**
+     * The position of every card in cards (-1 if the card is not tracked).
+     */
+    private final int[] cardPosition;
+
+    /**
+     * A legal set among the tracked cards (valid iff witnessFound).
+     */
+    private final int[] witness;
+    private boolean witnessFound;
+
+    /**
+     * True iff it is known that there is no legal set among the tracked cards.
+     */
+    private boolean noSets;
+
+    public SetWitness(Env env) {
+        this.env = env;
+        cards = new int[env.config.deckSize];
+        cardPosition = new int[env.config.deckSize];
+        Arrays.fill(cardPosition, -1);
+        witness = new int[env.config.featureSize];
+    }
+
+    /**
+     * Adds a card to the tracked cards.
+     *
+     * @param card - the card id to add.
+     */
+    public void add(int card) {
+        if (cardPosition[card] >= 0) return;
+        cardPosition[card] = cardsCount;
+        cards[cardsCount++] = card;
+        noSets = false;
+    }
+
+    /**
+     * Removes a card from the tracked cards.
+     *
+     * @param card - the card id to remove.
+     */
+    public void remove(int card) {
+        int position = cardPosition[card];
+        if (position < 0) return;
+
+        // swap the last card into the removed card's position
+        int last = cards[--cardsCount];
+        cards[position] = last;
+        cardPosition[last] = position;
+        cardPosition[card] = -1;
+
+        if (witnessFound)
+            for (int witnessCard : witness)
+                if (witnessCard == card) witnessFound = false;
+    }
+
+    /**
+     * @param card - a card id.
+     * @return - true iff the card is tracked.
+     */
+    public boolean contains(int card) {
+        return cardPosition[card] >= 0;
+    }
+
+    /**
+     * Counts all the legal sets among the tracked cards. Nothing is kept for it: every call is a full search over the
+     * tracked cards, O(n^2) for n cards (use hasSet to check if any set is left). Like the rest of the class, it is
+     * meant for the dealer thread only.
+     *
+     * @return - the number of legal sets among the tracked cards.
+     */
+    public long size() {
+        return env.util.countSets(cards, cardsCount, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return - true iff there is at least one legal set among the tracked cards.
+     */
+    public boolean hasSet() {
+        if (!witnessFound && !noSets) {
+            witnessFound = env.util.findSets(cards, cardsCount, 1,
+                    set -> System.arraycopy(set, 0, witness, 0, witness.length)) > 0;
+            noSets = !witnessFound;
+        }
+        return witnessFound;
+    }
+}
@@ -0,0 +1,49 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+import bguspl.set.VirtualClock;
+
+/**
+ * A dealer that runs a whole game of computer players on its own thread, in logical time: instead of waiting for the
+ * next deadline, it advances the virtual clock in steps of the computer players' reaction time and performs a step of
+ * every player (see Player.simulateStep) after each one, until a set is claimed or the deadline is reached.
+ * Timeouts and freezes therefore take no real time, and a game finishes as fast as its moves can be computed.
+ */
+public class SimulatedDealer extends Dealer {
+
+    /**
+     * The time between two key presses of a computer player (the wait of the AI thread).
+     */
+    public static final long STEP_MILLIS = 10;
+
+    private final Table table;
+    private final Player[] players;
+    private final VirtualClock clock;
+
+    /**
+     * @param env - the environment object (its clock must be a VirtualClock).
+     */
+    public SimulatedDealer(Env env, Table table, Player[] players) {
+        super(env, table, players);
+        this.table = table;
+        this.players = players;
+        this.clock = (VirtualClock) env.clock;
+    }
+
+    /**
+     * The players have no threads in a simulated game.
+     */
+    @Override
+    protected void startPlayers() {
+    }
+
+    @Override
+    protected void sleepUntilWokenOrTimeout() {
+        long deadline = nextDeadline();
+        while (table.setsToTest.isEmpty() && clock.millis() < deadline) {
+            clock.advance(Math.min(STEP_MILLIS, deadline - clock.millis()));
+            for (Player player : players)
+                player.simulateStep();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A computer player strategy that claims legal sets found by the solver (the table's index of sets), like a human
+ * would: the time it takes to claim a set is log-normally distributed around the configured reaction time, and with
+ * the configured error rate one card of the claimed set is replaced by another card on the table.
+ */
+public class SolverStrategy implements ComputerStrategy {
+
+    private final Env env;
+    private final Table table;
+
+    /**
+     * The cards and slots of the set being claimed.
+     */
+    private final int[] set;
+    private final int[] slots;
+
+    public SolverStrategy(Env env, Table table) {
+        this.env = env;
+        this.table = table;
+        set = new int[env.config.featureSize];
+        slots = new int[env.config.featureSize];
+    }
+
+    @Override
+    public long nextDelayMillis() {
+        Random random = ThreadLocalRandom.current();
+        return Math.round(env.config.computerReactionMillis * Math.exp(env.config.computerReactionSpread * random.nextGaussian()));
+    }
+
+    @Override
+    public int nextMove(int player, int[] keys) {
+        Random random = ThreadLocalRandom.current();
+        if (!table.tableSets.sample(random, set)) return 0;
+        for (int i = 0; i < set.length; i++) {
+            slots[i] = table.cardToSlot[set[i]];
+            if (slots[i] == Table.EMPTY) return 0; // the set was removed meanwhile
+        }
+
+        if (random.nextDouble() < env.config.computerErrorRate) {
+            // replace a card with a random other card on the table
+            int other = random.nextInt(env.config.tableSize);
+            if (table.slotToCard[other] != Table.EMPTY && !contains(slots, other))
+                slots[random.nextInt(slots.length)] = other;
+        }
+
+        // remove the player's other tokens, then place the missing ones
+        int count = 0;
+        for (int slot = 0; slot < env.config.tableSize; slot++)
+            if (table.hasToken(player, slot) && !contains(slots, slot))
+                keys[count++] = slot;
+        for (int slot : slots)
+            if (!table.hasToken(player, slot))
+                keys[count++] = slot;
+        return count;
+    }
+
+    private static boolean contains(int[] slots, int slot) {
+        for (int s : slots)
+            if (s == slot) return true;
+        return false;
+    }
+}
@@ -5,7 +5,9 @@ import bguspl.set.Env;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
 import java.util.stream.Collectors;
 
 /**
@@ -21,44 +23,113 @@ public class Table {
     private final Env env;
 
     /**
-     * Mapping between a slot and the card placed in it (null if none).
+     * Marks an empty slot in slotToCard, or a card that is not on the table in cardToSlot.
      */
-    protected final Integer[] slotToCard; // card per slot (if any)
+    public static final int EMPTY = -1;
 
     /**
-     * Mapping between a card and the slot it is in (null if none).
+     * Mapping between a slot and the card placed in it (EMPTY if none).
      */
-    protected final Integer[] cardToSlot; // slot per card (if any)
+    protected final int[] slotToCard; // card per slot (if any)
 
-    protected final List<Integer>[] playersTokens;
+    /**
+     * Mapping between a card and the slot it is in (EMPTY if none).
+     */
+    protected final int[] cardToSlot; // slot per card (if any)
 
-    protected List<int[]> setsToTest;
+    /**
+     * The number of cards on the table.
+     * Note: only the dealer thread writes it.
+     */
+    private volatile int cardsCount;
+
+    /**
+     * The empty slots (the first freeCount entries, in no particular order) and the position of every empty slot in
+     * freeSlots, so that finding, taking and freeing an empty slot are all O(1).
+     */
+    private final int[] freeSlots;
+    private final int[] freePosition;
+    private int freeCount;
+
+    /**
+     * The legal sets among the cards on the table (updated on every card placed or removed).
+     */
+    protected final SetIndex tableSets;
+
+    /**
+     * The players' tokens, stored both as a bitmask of slots per player and as a bitmask of players per slot (so
+     * placing, removing and finding tokens is O(1) and allocation free).
+     */
+    private final AtomicLongArray playerSlots;
+    private final AtomicLongArray slotPlayers;
+    private final int slotWords;
+    private final int playerWords;
+
+    /**
+     * Token and card changes on a slot are done while holding that slot's lock (so a token is never left on an
+     * empty slot, without serializing changes to different slots).
+     */
+    private final Object[] slotLocks;
+
+    /**
+     * The set claims waiting for the dealer's verdict.
+     */
+    protected final ClaimQueue setsToTest;
 
     protected boolean[] playersTested;
 
     protected List<Integer> playersOrderList;
 
-    protected volatile Boolean ignoreAllPlayersActions;
+    /**
+     * The table's input epoch: the dealer increments it whenever it starts changing the table (dealing, removing a
+     * set or reshuffling) and again when it is done, so player input is accepted iff it is even.
+     * Note: only the dealer thread writes it.
+     */
+    private volatile int inputEpoch;
+
+    /**
+     * The dealer's thread, which parks until a set is claimed (or its next deadline).
+     */
+    protected volatile Thread dealerThread;
+
+    /**
+     * The threads (one per player at most) to unpark whenever the table starts accepting input again.
+     */
+    private final AtomicReferenceArray<Thread> inputWaiters;
 
 
     /**
      * Constructor for testing.
      *
      * @param env        - the game environment objects.
-     * @param slotToCard - mapping between a slot and the card placed in it (null if none).
-     * @param cardToSlot - mapping between a card and the slot it is in (null if none).
+     * @param slotToCard - mapping between a slot and the card placed in it (cleared to an empty table).
+     * @param cardToSlot - mapping between a card and the slot it is in (cleared to an empty table).
      */
-    public Table(Env env, Integer[] slotToCard, Integer[] cardToSlot) {
+    public Table(Env env, int[] slotToCard, int[] cardToSlot) {
 
         this.env = env;
         this.slotToCard = slotToCard;
         this.cardToSlot = cardToSlot;
-        playersTokens = new ArrayList[env.config.players];
-        for (int i = 0; i < playersTokens.length; i++) {
-            playersTokens[i] = new ArrayList<Integer>();
+        Arrays.fill(slotToCard, EMPTY);
+        Arrays.fill(cardToSlot, EMPTY);
+        freeSlots = new int[slotToCard.length];
+        freePosition = new int[slotToCard.length];
+        for (int i = 0; i < freeSlots.length; i++) {
+            freeSlots[i] = i;
+            freePosition[i] = i;
+        }
+        freeCount = freeSlots.length;
+        tableSets = new SetIndex(env, slotToCard.length);
+        slotWords = (slotToCard.length + Long.SIZE - 1) / Long.SIZE;
+        playerWords = (env.config.players + Long.SIZE - 1) / Long.SIZE;
+        playerSlots = new AtomicLongArray(env.config.players * slotWords);
+        slotPlayers = new AtomicLongArray(slotToCard.length * playerWords);
+        slotLocks = new Object[slotToCard.length];
+        for (int i = 0; i < slotLocks.length; i++) {
+            slotLocks[i] = new Object();
         }
 
-        setsToTest = new ArrayList<>();
+        setsToTest = new ClaimQueue();
 
         playersTested = new boolean[env.config.players];
         for (int i = 0; i < playersTested.length; i++) {
@@ -67,7 +138,8 @@ public class Table {
 
         playersOrderList = new ArrayList<Integer>();
 
-        ignoreAllPlayersActions = true;
+        inputEpoch = 1; // no input until the cards are dealt
+        inputWaiters = new AtomicReferenceArray<>(env.config.players);
 
     }
 
@@ -78,7 +150,7 @@ public class Table {
      */
     public Table(Env env) {
 
-        this(env, new Integer[env.config.tableSize], new Integer[env.config.deckSize]);
+        this(env, new int[env.config.tableSize], new int[env.config.deckSize]);
     }
 
     /**
@@ -86,8 +158,7 @@ public class Table {
      */
     public void hints() {
         if (env.config.hints) {
-            List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-            env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
+            tableSets.forEach(set -> {
                 StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
                 List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted().collect(Collectors.toList());
                 int[][] features = env.util.cardsToFeatures(set);
@@ -96,17 +167,108 @@ public class Table {
         }
     }
 
+    /**
+     * Stops accepting player input (called by the dealer before it changes the table).
+     */
+    public void closeInput() {
+        if ((inputEpoch & 1) == 0) inputEpoch = inputEpoch + 1;
+    }
+
+    /**
+     * Starts accepting player input again (called by the dealer once it is done changing the table).
+     */
+    public void openInput() {
+        if ((inputEpoch & 1) == 1) {
+            inputEpoch = inputEpoch + 1;
+            for (int i = 0; i < inputWaiters.length(); i++)
+                LockSupport.unpark(inputWaiters.get(i));
+        }
+    }
+
+    /**
+     * Registers a thread of a player to be unparked whenever the table starts accepting input again.
+     *
+     * @param player - the player id.
+     * @param thread - the thread (null to unregister the player's thread).
+     */
+    public void wakeOnInput(int player, Thread thread) {
+        inputWaiters.set(player, thread);
+    }
+
+    /**
+     * @return - true iff player input is currently accepted.
+     */
+    public boolean acceptsInput() {
+        return (inputEpoch & 1) == 0;
+    }
+
+    /**
+     * @return - the current input epoch (see acceptsInput). The players stamp their key presses with it, and drop
+     * those stamped with an earlier epoch (pressed on a card that may have been replaced since).
+     */
+    public int inputEpoch() {
+        return inputEpoch;
+    }
+
     /**
      * Count the number of cards currently on the table.
      *
      * @return - the number of cards on the table.
      */
     public int countCards() {
-        int cards = 0;
-        for (Integer card : slotToCard)
-            if (card != null)
-                ++cards;
-        return cards;
+        return cardsCount;
+    }
+
+    /**
+     * Count the number of empty slots on the table.
+     *
+     * @return - the number of empty slots.
+     */
+    public int countFreeSlots() {
+        return freeCount;
+    }
+
+    /**
+     * Returns one of the empty slots (the order of the empty slots is arbitrary, but fixed until a slot is taken or
+     * freed, so picking a random i picks a random empty slot).
+     *
+     * @param i - an index between 0 and countFreeSlots() - 1.
+     * @return - an empty slot.
+     */
+    public int freeSlot(int i) {
+        return freeSlots[i];
+    }
+
+    private void takeSlot(int slot) {
+        int last = freeSlots[--freeCount];
+        freeSlots[freePosition[slot]] = last;
+        freePosition[last] = freePosition[slot];
+        freeSlots[freeCount] = slot;
+        freePosition[slot] = freeCount;
+    }
+
+    private void releaseSlot(int slot) {
+        int first = freeSlots[freeCount];
+        freeSlots[freePosition[slot]] = first;
+        freePosition[first] = freePosition[slot];
+        freeSlots[freeCount] = slot;
+        freePosition[slot] = freeCount++;
+    }
+
+    /**
+     * Count the number of legal sets among the cards currently on the table.
+     *
+     * @return - the number of sets on the table.
+     */
+    public int countSets() {
+        return tableSets.size();
+    }
+
+    /**
+     * @return - true iff there is at least one legal set among the cards currently on the table.
+     */
+    public boolean hasSet() {
+        return tableSets.hasSet();
     }
 
     /**
@@ -117,13 +279,16 @@ public class Table {
      * @post - the card placed is on the table, in the assigned slot.
      */
     public void placeCard(int card, int slot) {
-        try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {
+        if (slotToCard[slot] != EMPTY) {
+            tableSets.remove(slotToCard[slot]);
+            cardToSlot[slotToCard[slot]] = EMPTY;
+        } else {
+            takeSlot(slot);
+            cardsCount = cardsCount + 1;
         }
-
         cardToSlot[card] = slot;
         slotToCard[slot] = card;
+        tableSets.add(card);
         env.ui.placeCard(card, slot); // added
     }
 
@@ -133,33 +298,59 @@ public class Table {
      * @param slot - the slot from which to remove the card.
      */
     public void removeCard(int slot) {
-        try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {
-        }
-
-        synchronized (playersTokens) {
-
-            for (int i = 0; i < env.config.players; i++) {
-                if (playersTokens[i].contains(slot)) {
-                    removeToken(i, slot);
-                    env.ui.removeToken(i, slot);
+        synchronized (slotLocks[slot]) {
+            // clear the slot's players mask a word at a time, and the slot's bit of every player that had a token on it
+            boolean tokens = false;
+            for (int word = 0; word < playerWords; word++) {
+                long players = slotPlayers.getAndSet(slot * playerWords + word, 0);
+                tokens |= players != 0;
+                for (; players != 0; players &= players - 1) {
+                    int player = word * Long.SIZE + Long.numberOfTrailingZeros(players);
+                    playerSlots.accumulateAndGet(player * slotWords + slot / Long.SIZE, 1L << slot, (a, b) -> a & ~b);
                 }
             }
+            if (tokens) env.ui.removeTokens(slot);
             env.ui.removeCard(slot);
-            slotToCard[slot] = null;
+            if (slotToCard[slot] != EMPTY) {
+                tableSets.remove(slotToCard[slot]);
+                cardToSlot[slotToCard[slot]] = EMPTY;
+                slotToCard[slot] = EMPTY;
+                releaseSlot(slot);
+                cardsCount = cardsCount - 1;
+            }
         }
     }
 
     public void keyPressed(int player, int slot) {
-        if (!playersTokens[player].contains(slot)) {
-            if (playersTokens[player].size() < 3)
+        if (!hasToken(player, slot)) {
+            if (countTokens(player) < 3)
                 placeToken(player, slot);
         } else {
             removeToken(player, slot);
         }
     }
 
+    /**
+     * @param player - the player id.
+     * @param slot   - the slot.
+     * @return - true iff the player has a token on the slot.
+     */
+    public boolean hasToken(int player, int slot) {
+        return (playerSlots.get(player * slotWords + slot / Long.SIZE) & (1L << slot)) != 0;
+    }
+
+    /**
+     * @param player - the player id.
+     * @return - the number of tokens the player has on the table.
+     */
+    public int countTokens(int player) {
+        int tokens = 0;
+        for (int word = 0; word < slotWords; word++) {
+            tokens += Long.bitCount(playerSlots.get(player * slotWords + word));
+        }
+        return tokens;
+    }
+
     /**
      * Places a player token on a grid slot.
      *
@@ -168,34 +359,36 @@ public class Table {
      */
 
     public void placeToken(int player, int slot) {
-        synchronized (playersTokens) {
-            if (slotToCard[slot] != null) {
-                playersTokens[player].add(slot);
-                env.ui.placeToken(player, slot);
-
-                if (playersTokens[player].size() == 3) {
-                    addSet(player);
-                }
-            }
+        synchronized (slotLocks[slot]) {
+            if (slotToCard[slot] == EMPTY || hasToken(player, slot))
+                return;
+            playerSlots.accumulateAndGet(player * slotWords + slot / Long.SIZE, 1L << slot, (a, b) -> a | b);
+            slotPlayers.accumulateAndGet(slot * playerWords + player / Long.SIZE, 1L << player, (a, b) -> a | b);
+            env.ui.placeToken(player, slot);
+        }
+        if (countTokens(player) == 3) {
+            addSet(player);
         }
     }
 
     public void addSet(int id) {
         int[] tmp = new int[4];
-        synchronized (playersTokens) {
-            for (int i = 0; i < 3; i++) {
-                if(playersTokens[id].size()<=i)
-                    return;
-                if(playersTokens[id].get(i) == null)
-                    return;
-                if (slotToCard[playersTokens[id].get(i)] == null)
+        int i = 0;
+        for (int word = 0; word < slotWords; word++) {
+            for (long slots = playerSlots.get(id * slotWords + word); slots != 0; slots &= slots - 1) {
+                int slot = word * Long.SIZE + Long.numberOfTrailingZeros(slots);
+                int card = slotToCard[slot];
+                if (i >= 3 || card == EMPTY)
                     return;
-                tmp[i] = slotToCard[playersTokens[id].get(i)];
+                tmp[i++] = card;
             }
-            playersTested[id] = false;
-            tmp[3] = id;
-            setsToTest.add(tmp);
         }
+        if (i < 3)
+            return;
+        playersTested[id] = false;
+        tmp[3] = id;
+        setsToTest.add(tmp);
+        LockSupport.unpark(dealerThread);
     }
 
     /**
@@ -207,11 +400,12 @@ public class Table {
      */
 
     public boolean removeToken(int player, int slot) {
-        if (!playersTokens[player].contains(slot) ) return false;
-        playersTokens[player].remove((Integer) slot);
-        env.ui.removeToken(player, slot);
+        synchronized (slotLocks[slot]) {
+            if (!hasToken(player, slot)) return false;
+            playerSlots.accumulateAndGet(player * slotWords + slot / Long.SIZE, 1L << slot, (a, b) -> a & ~b);
+            slotPlayers.accumulateAndGet(slot * playerWords + player / Long.SIZE, 1L << player, (a, b) -> a & ~b);
+            env.ui.removeToken(player, slot);
+        }
         return true;
-
-
     }
 }
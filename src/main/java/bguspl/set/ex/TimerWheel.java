@@ -0,0 +1,144 @@
+package bguspl.set.ex;
+
+/**
+ * This class schedules timeouts on a hashed timer wheel: time is divided into ticks, and every timeout is kept in the
+ * bucket of its tick (modulo the number of buckets), so scheduling, cancelling and firing a timeout take O(1) and
+ * advancing the time only visits the buckets of the ticks passed.
+ * The timeouts are intrusive (a timeout is scheduled at most once, and may be rescheduled without allocating).
+ * Note: not thread safe, the wheel is owned by a single thread (the dealer's) which also runs the timeouts' tasks.
+ */
+public class TimerWheel {
+
+    /**
+     * A task to run at a deadline.
+     */
+    public static class Timeout {
+
+        private final Runnable task;
+        private long deadline;
+
+        /**
+         * The timeout's neighbors in its bucket, and the bucket (-1 if not scheduled).
+         */
+        private Timeout prev;
+        private Timeout next;
+        private int bucket = -1;
+
+        public Timeout(Runnable task) {
+            this.task = task;
+        }
+
+        public boolean isScheduled() {
+            return bucket != -1;
+        }
+
+        public long deadline() {
+            return deadline;
+        }
+    }
+
+    private final long tickMillis;
+    private final Timeout[] buckets;
+
+    /**
+     * The earliest tick that has not fully passed (its bucket is visited again by the next advance), and the number of
+     * scheduled timeouts.
+     */
+    private long tick;
+    private int size;
+
+    /**
+     * @param tickMillis - the length of a tick.
+     * @param buckets    - the number of buckets (ticks in a revolution of the wheel).
+     * @param now        - the current time.
+     */
+    public TimerWheel(long tickMillis, int buckets, long now) {
+        this.tickMillis = tickMillis;
+        this.buckets = new Timeout[buckets];
+        tick = now / tickMillis;
+    }
+
+    /**
+     * Schedules a timeout (if it is already scheduled, it is rescheduled).
+     *
+     * @param timeout  - the timeout.
+     * @param deadline - the time to run its task at (it runs at the first call to advance at or after it).
+     */
+    public void schedule(Timeout timeout, long deadline) {
+        cancel(timeout);
+        timeout.deadline = deadline;
+        // a deadline in a tick that has passed goes to the next tick to visit
+        int bucket = (int) Math.floorMod(Math.max(deadline / tickMillis, tick), (long) buckets.length);
+        timeout.bucket = bucket;
+        timeout.next = buckets[bucket];
+        if (timeout.next != null) timeout.next.prev = timeout;
+        buckets[bucket] = timeout;
+        ++size;
+    }
+
+    /**
+     * Cancels a timeout (if it is scheduled).
+     */
+    public void cancel(Timeout timeout) {
+        if (!timeout.isScheduled()) return;
+        if (timeout.prev != null) timeout.prev.next = timeout.next;
+        else buckets[timeout.bucket] = timeout.next;
+        if (timeout.next != null) timeout.next.prev = timeout.prev;
+        timeout.prev = timeout.next = null;
+        timeout.bucket = -1;
+        --size;
+    }
+
+    /**
+     * Runs the tasks of all the timeouts whose deadline has come, in the order of their ticks. The tasks may schedule
+     * timeouts (e.g. reschedule their own), and those that are due already run on the next advance.
+     *
+     * @param now - the current time.
+     */
+    public void advance(long now) {
+        long last = now / tickMillis;
+        // after a full revolution every bucket was visited once
+        long first = Math.max(tick, last - buckets.length + 1);
+        tick = Math.max(tick, last);
+        for (long t = first; t <= last && size > 0; t++) {
+            int bucket = (int) Math.floorMod(t, (long) buckets.length);
+            for (Timeout timeout = buckets[bucket]; timeout != null; ) {
+                Timeout next = timeout.next;
+                if (timeout.deadline <= now) {
+                    cancel(timeout);
+                    timeout.task.run();
+                    if (next != null && next.bucket != bucket) next = buckets[bucket]; // the task cancelled it
+                }
+                timeout = next;
+            }
+        }
+    }
+
+    /**
+     * @return - the earliest deadline of the scheduled timeouts (Long.MAX_VALUE if there are none).
+     */
+    public long nextDeadline() {
+        if (size == 0) return Long.MAX_VALUE;
+        // the first bucket holding a timeout of the current revolution holds the earliest one
+        for (long t = tick; t < tick + buckets.length; t++) {
+            long earliest = Long.MAX_VALUE;
+            for (Timeout timeout = buckets[(int) Math.floorMod(t, (long) buckets.length)]; timeout != null;
+                 timeout = timeout.next) {
+                if (timeout.deadline / tickMillis <= t) earliest = Math.min(earliest, timeout.deadline);
+            }
+            if (earliest != Long.MAX_VALUE) return earliest;
+        }
+        long earliest = Long.MAX_VALUE;
+        for (Timeout bucket : buckets)
+            for (Timeout timeout = bucket; timeout != null; timeout = timeout.next)
+                earliest = Math.min(earliest, timeout.deadline);
+        return earliest;
+    }
+
+    /**
+     * @return - the number of scheduled timeouts.
+     */
+    public int size() {
+        return size;
+    }
+}
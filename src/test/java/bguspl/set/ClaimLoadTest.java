@@ -0,0 +1,42 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClaimLoadTest {
+
+    @Test
+    void run_DealerGivesVerdictsOnLegalAndIllegalClaims() throws InterruptedException {
+        Logger logger = new SimulationTest.MockLogger();
+        Config config = ClaimLoad.loadConfig(logger, null, 4);
+        ClaimLoad load = new ClaimLoad(logger, config, 0, 0.5);
+
+        ClaimLoad.Result result = load.run(1000);
+
+        assertEquals(1, result.verdictsPerSecond.length);
+        assertTrue(result.legal > 0);
+        assertTrue(result.verdicts > result.legal);
+        assertTrue(result.claims >= result.verdicts + result.dropped);
+        assertTrue(result.p50 <= result.p99 && result.p99 <= result.p999);
+        assertEquals(0, result.missed);
+    }
+
+    @Test
+    void run_ClaimsMissedBeyondSustainedRate() throws InterruptedException {
+        Logger logger = new SimulationTest.MockLogger();
+        Config config = ClaimLoad.loadConfig(logger, null, 2);
+        ClaimLoad load = new ClaimLoad(logger, config, 1_000_000, 0.5);
+
+        ClaimLoad.Result result = load.run(1000);
+
+        // the producers cannot make more claims than the dealer gives verdicts on, the rest of the rate is missed
+        assertTrue(result.missed > result.claims);
+        // (the producers go on until they are terminated, a little after the run's time was taken)
+        assertTrue(result.claims + result.missed <= 1_000_000 * (result.millis + 100) / 1000);
+        assertTrue(result.p50 > 0);
+    }
+}
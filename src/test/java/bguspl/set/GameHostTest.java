@@ -0,0 +1,74 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameHostTest {
+
+    private Config smallGame() {
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        properties.put("FeatureCount", "3");
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "2");
+        properties.put("Rows", "2");
+        properties.put("Columns", "3");
+        properties.put("TurnTimeoutSeconds", "1");
+        properties.put("TurnTimeoutWarningSeconds", "0");
+        properties.put("PointFreezeSeconds", "0");
+        properties.put("PenaltyFreezeSeconds", "0");
+        properties.put("TableDelaySeconds", "0");
+        return new Config(new MockLogger(), properties);
+    }
+
+    @Test
+    void submit_GamesPlayedAndTornDown() throws InterruptedException {
+        GameHost host = new GameHost(new MockLogger(), 2);
+        List<GameHost.Game> games = new ArrayList<>();
+        for (int i = 0; i < 3; ++i)
+            games.add(host.submit(smallGame()));
+        for (GameHost.Game game : games)
+            game.await();
+
+        assertEquals(3, host.gamesFinished());
+        assertEquals(0, host.activeGames());
+        assertEquals(0, host.liveThreads());
+        long claims = 0;
+        for (GameHost.Game game : games) {
+            assertTrue(game.isFinished());
+            // a player thread and an AI thread per player
+            assertEquals(4, game.threadsCreated());
+            assertEquals(0, game.threadsRunning());
+            assertTrue(Arrays.stream(game.scores()).sum() > 0);
+            claims += game.claims();
+        }
+        assertEquals(claims, host.claims());
+        host.shutdown();
+    }
+
+    @Test
+    void shutdown_StopsRunningAndWaitingGames() throws InterruptedException {
+        GameHost host = new GameHost(new MockLogger(), 1);
+        Config config = smallGame();
+        host.submit(config);
+        host.submit(config);
+        host.shutdown();
+
+        assertEquals(2, host.gamesFinished());
+        assertEquals(0, host.liveThreads());
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
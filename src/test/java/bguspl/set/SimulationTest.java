@@ -0,0 +1,60 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimulationTest {
+
+    @Test
+    void play_GameRunsInLogicalTime() {
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "4");
+        properties.put("TurnTimeoutSeconds", "60");
+        properties.put("PointFreezeSeconds", "1");
+        properties.put("PenaltyFreezeSeconds", "3");
+        properties.put("TableDelaySeconds", "0.1");
+        Logger logger = new MockLogger();
+        Simulation simulation = new Simulation(logger, new Config(logger, properties));
+
+        Simulation.Result result = simulation.play();
+
+        assertEquals(4, result.scores.length);
+        assertTrue(result.points() > 0);
+        assertTrue(result.claims >= result.points());
+        // the freezes alone take more time than the game took to simulate
+        assertTrue(result.gameMillis > 1000L * result.points());
+        assertTrue(result.realNanos / 1_000_000 < result.gameMillis);
+    }
+
+    @Test
+    void play_SolverPlayersClaimLegalSets() {
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "4");
+        properties.put("ComputerStrategy", "Solver");
+        properties.put("ComputerErrorRate", "0");
+        properties.put("TurnTimeoutSeconds", "60");
+        Logger logger = new MockLogger();
+        Simulation simulation = new Simulation(logger, new Config(logger, properties));
+
+        Simulation.Result result = simulation.play();
+
+        assertTrue(result.points() > 0);
+        // only claims racing another player's claim of the same set may be illegal
+        assertTrue(result.claims < 2L * result.points());
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserInterfaceAnimatorTest {
+
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void cardChanges_DoNotBlockCaller() {
+        UserInterfaceAnimator animator = new UserInterfaceAnimator(new RecordingUserInterface(), 100);
+        long start = System.currentTimeMillis();
+        for (int slot = 0; slot < 6; ++slot) {
+            animator.removeCard(slot);
+            animator.placeCard(slot, slot);
+        }
+        assertTrue(System.currentTimeMillis() - start < 100);
+
+        animator.dispose();
+        assertTrue(System.currentTimeMillis() - start >= 12 * 100);
+    }
+
+    @Test
+    void whenChangesShown_CalledBackOnceReplayed() {
+        UserInterfaceAnimator animator = new UserInterfaceAnimator(new RecordingUserInterface(), 50);
+        long start = System.currentTimeMillis();
+        long[] shownAt = new long[1];
+        for (int slot = 0; slot < 3; ++slot)
+            animator.placeCard(slot, slot);
+        animator.whenChangesShown(() -> {
+            shownAt[0] = System.currentTimeMillis();
+            calls.add("shown");
+        });
+        assertTrue(System.currentTimeMillis() - start < 50);
+
+        animator.dispose();
+        assertEquals(Arrays.asList("placeCard 0 0", "placeCard 1 1", "placeCard 2 2", "shown", "dispose"), calls);
+        assertTrue(shownAt[0] - start >= 3 * 50);
+    }
+
+    @Test
+    void changes_ReplayedInOrder() {
+        UserInterfaceAnimator animator = new UserInterfaceAnimator(new RecordingUserInterface(), 1);
+        animator.placeCard(7, 2);
+        animator.placeToken(0, 2);
+        animator.removeTokens(2);
+        animator.removeCard(2);
+        animator.announceWinner(new int[]{0});
+        animator.dispose();
+
+        assertEquals(Arrays.asList("placeCard 7 2", "placeToken 0 2", "removeTokens 2", "removeCard 2",
+                "announceWinner [0]", "dispose"), calls);
+    }
+
+    class RecordingUserInterface implements UserInterface {
+        @Override
+        public void placeCard(int card, int slot) {
+            calls.add("placeCard " + card + " " + slot);
+        }
+
+        @Override
+        public void removeCard(int slot) {
+            calls.add("removeCard " + slot);
+        }
+
+        @Override
+        public void placeToken(int player, int slot) {
+            calls.add("placeToken " + player + " " + slot);
+        }
+
+        @Override
+        public void removeTokens() {
+            calls.add("removeTokens");
+        }
+
+        @Override
+        public void removeTokens(int slot) {
+            calls.add("removeTokens " + slot);
+        }
+
+        @Override
+        public void removeToken(int player, int slot) {
+            calls.add("removeToken " + player + " " + slot);
+        }
+
+        @Override
+        public void setCountdown(long millies, boolean warn) {}
+
+        @Override
+        public void setElapsed(long millies) {}
+
+        @Override
+        public void setScore(int player, int score) {}
+
+        @Override
+        public void setFreeze(int player, long millies) {}
+
+        @Override
+        public void announceWinner(int[] players) {
+            calls.add("announceWinner " + Arrays.toString(players));
+        }
+
+        @Override
+        public void dispose() {
+            calls.add("dispose");
+        }
+    }
+}
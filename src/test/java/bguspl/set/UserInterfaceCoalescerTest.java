@@ -0,0 +1,113 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UserInterfaceCoalescerTest {
+
+    private final List<String> calls = new ArrayList<>();
+    private int dispatches;
+    private UserInterfaceCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new UserInterfaceCoalescer(new RecordingUserInterface(), 2, batch -> {
+            ++dispatches;
+            batch.run();
+        });
+    }
+
+    @Test
+    void setCountdown_OnlyChangesPassedOn() {
+        coalescer.setCountdown(59_990, false);
+        coalescer.flush();
+        coalescer.setCountdown(59_500, false);
+        coalescer.flush();
+        coalescer.setCountdown(58_999, false);
+        coalescer.flush();
+        coalescer.setCountdown(4_990, true);
+        coalescer.flush();
+        coalescer.setCountdown(4_991, true);
+        coalescer.flush();
+
+        assertEquals(Arrays.asList("setCountdown 59990 false", "setCountdown 58999 false", "setCountdown 4990 true"),
+                calls);
+        assertEquals(3, dispatches);
+    }
+
+    @Test
+    void setFreeze_OnlyChangesPassedOn() {
+        for (long millies = 3000; millies >= 0; millies -= 10) {
+            coalescer.setFreeze(0, millies);
+            coalescer.setFreeze(1, 0);
+            coalescer.flush();
+        }
+
+        assertEquals(Arrays.asList("setFreeze 0 3000", "setFreeze 1 0", "setFreeze 0 2990", "setFreeze 0 1990",
+                "setFreeze 0 990", "setFreeze 0 0"), calls);
+        assertEquals(5, dispatches);
+    }
+
+    @Test
+    void flush_OneDispatchPerTick() {
+        coalescer.setCountdown(10_000, false);
+        coalescer.setFreeze(0, 2000);
+        coalescer.setFreeze(1, 1000);
+        assertEquals(0, calls.size());
+
+        coalescer.flush();
+        coalescer.flush();
+        assertEquals(3, calls.size());
+        assertEquals(1, dispatches);
+    }
+
+    class RecordingUserInterface implements UserInterface {
+        @Override
+        public void placeCard(int card, int slot) {}
+
+        @Override
+        public void removeCard(int slot) {}
+
+        @Override
+        public void placeToken(int player, int slot) {}
+
+        @Override
+        public void removeTokens() {}
+
+        @Override
+        public void removeTokens(int slot) {}
+
+        @Override
+        public void removeToken(int player, int slot) {}
+
+        @Override
+        public void setCountdown(long millies, boolean warn) {
+            calls.add("setCountdown " + millies + " " + warn);
+        }
+
+        @Override
+        public void setElapsed(long millies) {
+            calls.add("setElapsed " + millies);
+        }
+
+        @Override
+        public void setScore(int player, int score) {}
+
+        @Override
+        public void setFreeze(int player, long millies) {
+            calls.add("setFreeze " + player + " " + millies);
+        }
+
+        @Override
+        public void announceWinner(int[] players) {}
+
+        @Override
+        public void dispose() {}
+    }
+}
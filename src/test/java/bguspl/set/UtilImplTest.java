@@ -0,0 +1,182 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtilImplTest {
+    Config config;
+    UtilImpl util;
+    private List<Integer> deck;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        config = new Config(new MockLogger(), properties);
+        util = new UtilImpl(config);
+        deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+    }
+
+    @Test
+    void testSet_AllTriples() {
+        // with 3 values per feature, a triple is legal iff every feature sums to 0 mod 3
+        for (int a = 0; a < config.deckSize; ++a)
+            for (int b = a + 1; b < config.deckSize; ++b)
+                for (int c = b + 1; c < config.deckSize; ++c) {
+                    int[] fa = util.cardToFeatures(a), fb = util.cardToFeatures(b), fc = util.cardToFeatures(c);
+                    boolean expected = IntStream.range(0, config.featureCount).allMatch(i -> (fa[i] + fb[i] + fc[i]) % 3 == 0);
+                    assertEquals(expected, util.testSet(new int[]{a, b, c}));
+                }
+    }
+
+    @Test
+    void testSet_FourValuedFeatures() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "4");
+        properties.put("FeatureCount", "3");
+        UtilImpl util = new UtilImpl(new Config(new MockLogger(), properties));
+
+        // features: (0,0,0) (1,1,0) (2,2,0) (3,3,0)
+        assertTrue(util.testSet(new int[]{0, 20, 40, 60}));
+        // features: (0,0,0) (1,1,0) (2,2,0) (3,3,1)
+        assertFalse(util.testSet(new int[]{0, 20, 40, 61}));
+        // features: (0,0,0) (1,1,0) (2,2,1)
+        assertFalse(util.testSet(new int[]{0, 20, 41}));
+    }
+
+    @Test
+    void findSets_FullDeck() {
+        // every pair of cards in a full deck has exactly one completing card: 81 * 80 / 6 sets
+        List<int[]> sets = util.findSets(deck, Integer.MAX_VALUE);
+        assertEquals(1080, sets.size());
+        sets.forEach(set -> assertTrue(util.testSet(set)));
+    }
+
+    @Test
+    void findSets_StopsAtCount() {
+        assertEquals(1, util.findSets(deck, 1).size());
+        assertEquals(7, util.findSets(deck, 7).size());
+    }
+
+    @Test
+    void findSets_NoSets() {
+        // cards 0, 1, 3, 4 - no three of them are a set
+        assertEquals(0, util.findSets(Arrays.asList(0, 1, 3, 4), Integer.MAX_VALUE).size());
+        assertEquals(0, util.findSets(Arrays.asList(0, 1), 1).size());
+    }
+
+    @Test
+    void findSets_MatchesBruteForce() {
+        List<Integer> table = Arrays.asList(40, 7, 13, 80, 2, 55, 61, 29, 33, 71, 18, 50);
+        List<int[]> sets = util.findSets(table, Integer.MAX_VALUE);
+
+        int i = 0;
+        for (int a = 0; a < table.size(); ++a)
+            for (int b = a + 1; b < table.size(); ++b)
+                for (int c = b + 1; c < table.size(); ++c) {
+                    int[] cards = new int[]{table.get(a), table.get(b), table.get(c)};
+                    Arrays.sort(cards);
+                    if (util.testSet(cards))
+                        assertArrayEquals(cards, sets.get(i++));
+                }
+        assertEquals(i, sets.size());
+    }
+
+    @Test
+    void countSets_PrimitiveCards() {
+        int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+        assertEquals(1080, util.countSets(cards, cards.length, Integer.MAX_VALUE));
+        assertEquals(10, util.countSets(cards, cards.length, 10));
+        assertTrue(util.hasSet(cards, 3)); // cards 0, 1, 2
+        assertFalse(util.hasSet(new int[]{0, 1, 3, 4, 2}, 4));
+    }
+
+    @Test
+    void findSets_FourValuedMatchesBruteForce() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "4");
+        properties.put("FeatureCount", "3");
+        UtilImpl util = new UtilImpl(new Config(new MockLogger(), properties));
+        int[] cards = IntStream.range(0, 64).map(i -> (i * 37) % 64).toArray();
+        List<int[]> sets = util.findSets(Arrays.stream(cards).boxed().collect(Collectors.toList()), Integer.MAX_VALUE);
+
+        int i = 0;
+        for (int a = 0; a < cards.length; ++a)
+            for (int b = a + 1; b < cards.length; ++b)
+                for (int c = b + 1; c < cards.length; ++c)
+                    for (int d = c + 1; d < cards.length; ++d) {
+                        int[] set = new int[]{cards[a], cards[b], cards[c], cards[d]};
+                        Arrays.sort(set);
+                        if (util.testSet(set))
+                            assertArrayEquals(set, sets.get(i++));
+                    }
+        assertEquals(i, sets.size());
+
+        // every set containing card 5 is found once
+        int[] others = Arrays.stream(cards).filter(card -> card != 5).toArray();
+        long expected = sets.stream().filter(set -> Arrays.stream(set).anyMatch(card -> card == 5)).count();
+        assertEquals(expected, util.findSetsWith(5, others, others.length, Integer.MAX_VALUE, null));
+    }
+
+    @Test
+    void hasSet_LargeDeck() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "4");
+        properties.put("FeatureCount", "6");
+        Config config = new Config(new MockLogger(), properties);
+        UtilImpl util = new UtilImpl(config);
+        int[] cards = IntStream.range(0, config.deckSize).toArray();
+
+        assertTrue(util.hasSet(cards, cards.length));
+        assertEquals(100, util.countSets(cards, cards.length, 100));
+        // cards 0 - 3 only differ in their last feature
+        int[] corner = new int[]{0, 1, 2, 3};
+        assertEquals(1, util.countSets(corner, corner.length, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void findSets_ParallelMatchesSequential() {
+        for (String featureSize : new String[]{"3", "4"}) {
+            Properties properties = new Properties();
+            properties.put("FeatureSize", featureSize);
+            properties.put("FeatureCount", "4");
+            properties.put("SolverParallelism", "4");
+            properties.put("SolverParallelThreshold", "10");
+            Config config = new Config(new MockLogger(), properties);
+            UtilImpl sequential = new UtilImpl(config, null);
+            UtilImpl parallel = new UtilImpl(config);
+            List<Integer> cards = IntStream.range(0, config.deckSize).map(i -> (i * 7) % config.deckSize).boxed().collect(Collectors.toList());
+
+            for (int count : new int[]{1, 7, Integer.MAX_VALUE}) {
+                List<int[]> expected = sequential.findSets(cards, count);
+                List<int[]> actual = parallel.findSets(cards, count);
+                assertEquals(expected.size(), actual.size());
+                for (int i = 0; i < expected.size(); ++i)
+                    assertArrayEquals(expected.get(i), actual.get(i));
+            }
+
+            int[] others = cards.stream().mapToInt(Integer::intValue).filter(card -> card != 0).toArray();
+            assertEquals(sequential.findSetsWith(0, others, others.length, Integer.MAX_VALUE, null),
+                    parallel.findSetsWith(0, others, others.length, Integer.MAX_VALUE, null));
+        }
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
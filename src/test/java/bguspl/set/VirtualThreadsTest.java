@@ -0,0 +1,42 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VirtualThreadsTest {
+
+    private void assertRuns(ThreadFactory factory) throws InterruptedException {
+        AtomicBoolean ran = new AtomicBoolean();
+        Thread thread = factory.newThread(() -> ran.set(true));
+        thread.start();
+        thread.join();
+        assertTrue(ran.get());
+    }
+
+    @Test
+    void factory_PlatformThreads() throws InterruptedException {
+        ThreadFactory factory = VirtualThreads.factory(false, new MockLogger());
+        assertTrue(!factory.newThread(() -> {}).isDaemon());
+        assertRuns(factory);
+    }
+
+    @Test
+    void factory_VirtualThreadsOrFallback() throws InterruptedException {
+        ThreadFactory factory = VirtualThreads.factory(true, new MockLogger());
+        // virtual threads are always daemon threads
+        if (VirtualThreads.available())
+            assertTrue(factory.newThread(() -> {}).isDaemon());
+        assertRuns(factory);
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
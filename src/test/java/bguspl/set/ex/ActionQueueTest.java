@@ -0,0 +1,81 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ActionQueueTest {
+
+    private final ActionQueue queue = new ActionQueue(3);
+
+    @Test
+    void offer_QueueIsFull() {
+        assertTrue(queue.offer(1, 0));
+        assertTrue(queue.offer(2, 0));
+        assertTrue(queue.offer(3, 0));
+        assertFalse(queue.offer(4, 0));
+        assertEquals(3, queue.size());
+        assertEquals(0, queue.remainingCapacity());
+        assertEquals(1, queue.poll());
+        assertEquals(2, queue.poll());
+        assertEquals(3, queue.poll());
+        assertEquals(ActionQueue.EMPTY, queue.poll());
+    }
+
+    @Test
+    void poll_KeyPressesTakenInOrder() {
+        for (int round = 0; round < 5; ++round) { // wraps around the buffer
+            queue.offer(round, 0);
+            queue.offer(round + 1, 0);
+            assertEquals(round, queue.poll());
+            assertEquals(round + 1, queue.poll());
+        }
+        assertEquals(ActionQueue.EMPTY, queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void poll_StampOfKeyPressTaken() {
+        queue.offer(1, 2);
+        queue.offer(3, 0);
+        queue.offer(5, 4);
+        assertEquals(1, queue.poll());
+        assertEquals(2, queue.stamp());
+        assertEquals(3, queue.poll());
+        assertEquals(0, queue.stamp());
+        assertEquals(5, queue.poll());
+        assertEquals(4, queue.stamp());
+    }
+
+    @Test
+    void awaitNotEmpty_BlocksUntilKeyPressed() throws InterruptedException {
+        AtomicInteger taken = new AtomicInteger(ActionQueue.EMPTY);
+        Thread consumer = new Thread(() -> {
+            while (queue.isEmpty())
+                queue.awaitNotEmpty();
+            taken.set(queue.poll());
+        });
+        consumer.start();
+        consumer.join(100);
+        assertTrue(consumer.isAlive());
+
+        queue.offer(7, 0);
+        consumer.join(1000);
+        assertFalse(consumer.isAlive());
+        assertEquals(7, taken.get());
+    }
+
+    @Test
+    void awaitNotEmpty_ReturnsWhenUnparked() throws InterruptedException {
+        Thread consumer = new Thread(queue::awaitNotEmpty);
+        consumer.start();
+        consumer.interrupt();
+        consumer.join(1000);
+        assertFalse(consumer.isAlive());
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,73 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClaimQueueTest {
+
+    @Test
+    void drain_ArrivalOrder() {
+        ClaimQueue queue = new ClaimQueue();
+        for (int i = 0; i < 5; ++i)
+            queue.add(new int[]{0, 1, 2, i});
+        assertEquals(5, queue.size());
+
+        List<Integer> players = new ArrayList<>();
+        assertEquals(5, queue.drain(claim -> players.add(claim[3])));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), players);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void drain_Metrics() {
+        ClaimQueue queue = new ClaimQueue();
+        queue.add(new int[]{0, 1, 2, 0});
+        queue.add(new int[]{0, 1, 2, 1});
+        queue.drain(claim -> {});
+        queue.drain(claim -> {});
+        queue.add(new int[]{0, 1, 2, 0});
+        queue.drain(claim -> {});
+
+        assertEquals(3, queue.claims());
+        assertEquals(2, queue.maxDepth());
+        assertEquals(2, queue.batches());
+        assertEquals(2, queue.maxBatch());
+        assertEquals(1.5, queue.averageBatch());
+    }
+
+    @Test
+    void drain_ClaimsAddedMeanwhileLeftForNextDrain() {
+        ClaimQueue queue = new ClaimQueue();
+        queue.add(new int[]{0, 1, 2, 0});
+        queue.add(new int[]{0, 1, 2, 1});
+        assertEquals(2, queue.drain(claim -> queue.add(new int[]{0, 1, 2, claim[3] + 2})));
+        assertEquals(2, queue.size());
+        List<Integer> players = new ArrayList<>();
+        assertEquals(2, queue.drain(claim -> players.add(claim[3])));
+        assertEquals(Arrays.asList(2, 3), players);
+    }
+
+    @Test
+    void add_ManyProducers() throws InterruptedException {
+        ClaimQueue queue = new ClaimQueue();
+        Thread[] producers = new Thread[4];
+        for (int p = 0; p < producers.length; ++p) {
+            int id = p;
+            producers[p] = new Thread(() -> {
+                for (int i = 0; i < 1000; ++i)
+                    queue.add(new int[]{0, 1, 2, id});
+            });
+            producers[p].start();
+        }
+        for (Thread producer : producers)
+            producer.join();
+        assertEquals(4000, queue.drain(claim -> {}));
+        assertEquals(0, queue.size());
+    }
+}
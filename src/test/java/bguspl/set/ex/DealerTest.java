@@ -8,6 +8,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 import java.util.logging.Logger;
@@ -22,8 +24,8 @@ class DealerTest {
     Dealer dealer;
     Env env;
     Table table;
-    private Integer[] slotToCard;
-    private Integer[] cardToSlot;
+    private int[] slotToCard;
+    private int[] cardToSlot;
 
     private List<Integer> deck;
 
@@ -44,8 +46,8 @@ class DealerTest {
         properties.put("PlayerKeys2", "85,73,79,80");
         MockLogger logger = new MockLogger();
         Config config = new Config(logger, properties);
-        slotToCard = new Integer[config.tableSize];
-        cardToSlot = new Integer[config.deckSize];
+        slotToCard = new int[config.tableSize];
+        cardToSlot = new int[config.deckSize];
         env = new Env(logger, config, new MockUserInterface(), new MockUtil());
         table = new Table(env, slotToCard, cardToSlot);
         players = new Player[config.players];
@@ -60,19 +62,15 @@ class DealerTest {
     }
 
     private int fillSomeSlots() {
-        slotToCard[1] = 3;
-        slotToCard[2] = 5;
-        cardToSlot[3] = 1;
-        cardToSlot[5] = 2;
+        table.placeCard(3, 1);
+        table.placeCard(5, 2);
 
         return 2;
     }
 
     private void fillAllSlots() {
-        for (int i = 0; i < slotToCard.length; ++i) {
-            slotToCard[i] = i;
-            cardToSlot[i] = i;
-        }
+        for (int i = 0; i < slotToCard.length; ++i)
+            table.placeCard(i, i);
     }
 
     @Test //ADDED
@@ -117,6 +115,17 @@ class DealerTest {
         assertEquals(expectedCards, table.countCards());
     }
 
+    @Test
+    void placeCardsOnTable_CardsReturnedToDeck(){
+        for (int round = 0; round < 100; ++round) {
+            dealer.placeCardsOnTable();
+            assertEquals(env.config.deckSize - table.countCards(), dealer.countDeckCards());
+            assertEquals(table.countCards(), Arrays.stream(slotToCard).distinct().count());
+            dealer.removeAllCardsFromTable();
+            assertEquals(env.config.deckSize, dealer.countDeckCards());
+        }
+    }
+
     @Test //ADDED
     void placeCardsOnTable_TableIsFull(){
         fillAllSlots();
@@ -176,7 +185,7 @@ class DealerTest {
 
         @Override
         public List<int[]> findSets(List<Integer> deck, int count) {
-            return null;
+            return Collections.emptyList();
         }
 
         @Override
@@ -92,20 +92,22 @@ class PlayerTest {
 
     @Test //ADDED
     void keyPressed_ActionQueueIsEmpty(){
-        table.ignoreAllPlayersActions = false;
+        when(table.inputEpoch()).thenReturn(2); // an even epoch accepts input
         player.keyPressed(0);
-        assertEquals(true,player.getActionQueue().contains(0) );
+        assertEquals(0,player.getActionQueue().poll());
+        assertEquals(2,player.getActionQueue().stamp());
     }
 
     @Test //ADDED
     void keyPressed_ActionQueueIsFull(){
-        player.getActionQueue().add(1);
-        player.getActionQueue().add(2);
-        player.getActionQueue().add(3);
-        table.ignoreAllPlayersActions = false; // we should enter
+        player.getActionQueue().offer(1, 0);
+        player.getActionQueue().offer(2, 0);
+        player.getActionQueue().offer(3, 0);
+        when(table.inputEpoch()).thenReturn(2); // we should enter (an even epoch accepts input)
         player.keyPressed(0);
-        assertEquals(false,player.getActionQueue().contains(0));
         assertEquals(true,player.getActionQueue().size()==3);
+        for (int slot = 1; slot <= 3; slot++)
+            assertEquals(slot,player.getActionQueue().poll()); // the press of slot 0 was not queued
 
     }
 
@@ -0,0 +1,73 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SetIndexTest {
+    Env env;
+    SetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        MockLogger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+        env = new Env(logger, config, null, new UtilImpl(config));
+        index = new SetIndex(env, 12);
+    }
+
+    @Test
+    void add_CompletesSet() {
+        index.add(0);
+        index.add(1);
+        assertFalse(index.hasSet());
+        index.add(2);
+        assertEquals(1, index.size());
+        assertArrayEquals(new int[]{0, 1, 2}, index.getSet(0, new int[3]));
+        assertTrue(index.inSet(1));
+    }
+
+    @Test
+    void remove_DropsOnlyItsSets() {
+        // {0, 1, 2} and {0, 3, 6} share card 0, {1, 4, 7} does not
+        for (int card : new int[]{0, 1, 2, 3, 6, 4, 7})
+            index.add(card);
+        int expected = env.util.countSets(new int[]{0, 1, 2, 3, 6, 4, 7}, 7, Integer.MAX_VALUE);
+        assertEquals(expected, index.size());
+
+        index.remove(0);
+        assertEquals(env.util.countSets(new int[]{1, 2, 3, 6, 4, 7}, 6, Integer.MAX_VALUE), index.size());
+        assertFalse(index.inSet(0));
+        assertTrue(index.inSet(7));
+    }
+
+    @Test
+    void clear_NoSets() {
+        index.add(0);
+        index.add(1);
+        index.add(2);
+        index.clear();
+        assertEquals(0, index.size());
+        index.add(0);
+        assertFalse(index.hasSet());
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class SetWitnessTest {
+    Env env;
+    SetWitness witness;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        MockLogger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+        env = new Env(logger, config, null, new UtilImpl(config));
+        witness = new SetWitness(env);
+        for (int card = 0; card < config.deckSize; ++card)
+            witness.add(card);
+    }
+
+    @Test
+    void add_FullDeck() {
+        assertEquals(1080, witness.size());
+    }
+
+    @Test
+    void remove_Set() {
+        // every card is part of 40 sets, and the only set shared by any two of them is {0, 1, 2}
+        witness.remove(0);
+        witness.remove(1);
+        witness.remove(2);
+        assertEquals(1080 - (3 * 40 - 3 + 1), witness.size());
+        assertFalse(witness.contains(1));
+    }
+
+    @Test
+    void remove_UntilNoSets() {
+        for (int card = 0; card < env.config.deckSize; ++card) {
+            witness.remove(card);
+            int[] left = new int[env.config.deckSize - card - 1];
+            for (int i = 0; i < left.length; ++i)
+                left[i] = card + 1 + i;
+            assertEquals(env.util.hasSet(left, left.length), witness.hasSet());
+        }
+        assertEquals(0, witness.size());
+        assertFalse(witness.hasSet());
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
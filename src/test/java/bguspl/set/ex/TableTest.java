@@ -7,19 +7,23 @@ import bguspl.set.Util;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 
 class TableTest {
     Env env;
     Table table;
-    private Integer[] slotToCard;
-    private Integer[] cardToSlot;
+    private int[] slotToCard;
+    private int[] cardToSlot;
 
     @BeforeEach
     void setUp() {
@@ -34,27 +38,23 @@ class TableTest {
         properties.put("PlayerKeys2", "85,73,79,80");
         MockLogger logger = new MockLogger();
         Config config = new Config(logger, properties);
-        slotToCard = new Integer[config.tableSize];
-        cardToSlot = new Integer[config.deckSize];
+        slotToCard = new int[config.tableSize];
+        cardToSlot = new int[config.deckSize];
 
         env = new Env(logger, config, new MockUserInterface(), new MockUtil());
         table = new Table(env, slotToCard, cardToSlot);
     }
 
     private int fillSomeSlots() {
-        slotToCard[1] = 3;
-        slotToCard[2] = 5;
-        cardToSlot[3] = 1;
-        cardToSlot[5] = 2;
+        table.placeCard(3, 1);
+        table.placeCard(5, 2);
 
         return 2;
     }
 
     private void fillAllSlots() {
-        for (int i = 0; i < slotToCard.length; ++i) {
-            slotToCard[i] = i;
-            cardToSlot[i] = i;
-        }
+        for (int i = 0; i < slotToCard.length; ++i)
+            table.placeCard(i, i);
     }
 
     private void placeSomeCardsAndAssert() throws InterruptedException {
@@ -89,6 +89,35 @@ class TableTest {
         assertEquals(slotToCard.length, table.countCards());
     }
 
+    @Test
+    void countFreeSlots_CardPlacedAndRemoved() {
+        fillSomeSlots();
+        assertEquals(slotToCard.length - 2, table.countFreeSlots());
+        for (int i = 0; i < table.countFreeSlots(); ++i)
+            assertEquals(Table.EMPTY, slotToCard[table.freeSlot(i)]);
+
+        table.removeCard(1);
+        assertEquals(slotToCard.length - 1, table.countFreeSlots());
+        assertEquals(1, table.countCards());
+        assertEquals(Table.EMPTY, cardToSlot[3]);
+    }
+
+    @Test
+    void openInput_WakesRegisteredThread() throws InterruptedException {
+        Thread waiter = new Thread(() -> {
+            while (!table.acceptsInput())
+                LockSupport.park();
+        });
+        table.wakeOnInput(0, waiter);
+        waiter.start();
+        waiter.join(100);
+        assertTrue(waiter.isAlive());
+
+        table.openInput();
+        waiter.join(1000);
+        assertFalse(waiter.isAlive());
+    }
+
     @Test
     void placeCard_SomeSlotsAreFilled() throws InterruptedException {
 
@@ -105,7 +134,7 @@ class TableTest {
     @Test //ADDED
     void placeToken_NoSlotsAreFilled() {
         table.placeToken(0,0);
-        assertEquals(true, table.playersTokens[0].isEmpty());
+        assertEquals(0, table.countTokens(0));
     }
 
     @Test //ADDED
@@ -114,22 +143,35 @@ class TableTest {
         table.placeToken(0,1);
         table.placeToken(0,2);
         table.placeToken(0,3); //no card at this slot
-        assertEquals(false, table.playersTokens[0].contains(3) );
+        assertEquals(false, table.hasToken(0, 3) );
     }
 
     @Test//ADDED
     void placeTokens_SomeSlotsAreFilled(){
         fillSomeSlots();
         table.placeToken(0,1);
-        assertEquals(true, table.playersTokens[0].contains(1) );
+        assertEquals(true, table.hasToken(0, 1) );
 
         table.placeToken(0,2);
-        assertEquals(true, table.playersTokens[0].contains(2) );
+        assertEquals(true, table.hasToken(0, 2) );
 
         table.placeToken(0,3); //no card at this slot
-        assertEquals(false, table.playersTokens[0].contains(3) );
+        assertEquals(false, table.hasToken(0, 3) );
 
     }
+    @Test
+    void removeCard_RemovesTokens() {
+        fillSomeSlots();
+        table.placeToken(0, 1);
+        table.placeToken(1, 1);
+        table.placeToken(1, 2);
+        table.removeCard(1);
+        assertEquals(false, table.hasToken(0, 1));
+        assertEquals(false, table.hasToken(1, 1));
+        assertEquals(0, table.countTokens(0));
+        assertEquals(1, table.countTokens(1));
+    }
+
     @Test//ADDED
     void removeTokens_NoSlotsAreFilled(){
         assertEquals(false, table.removeToken(0,1));
@@ -140,11 +182,11 @@ class TableTest {
         fillSomeSlots();
         table.placeToken(0, 1);
         table.removeToken(0, 1);
-        assertEquals(false, table.playersTokens[0].contains(1));
+        assertEquals(false, table.hasToken(0, 1));
 
         table.placeToken(0, 2);
         table.removeToken(0, 2);
-        assertEquals(false, table.playersTokens[0].contains(2));
+        assertEquals(false, table.hasToken(0, 2));
 
     }
 
@@ -196,7 +238,7 @@ class TableTest {
 
         @Override
         public List<int[]> findSets(List<Integer> deck, int count) {
-            return null;
+            return Collections.emptyList();
         }
 
         @Override
@@ -0,0 +1,73 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimerWheelTest {
+
+    private final TimerWheel timers = new TimerWheel(10, 8, 1000);
+    private final List<String> fired = new ArrayList<>();
+
+    private TimerWheel.Timeout timeout(String name) {
+        return new TimerWheel.Timeout(() -> fired.add(name));
+    }
+
+    @Test
+    void advance_TimeoutsFiredAtDeadlineInOrder() {
+        timers.schedule(timeout("b"), 1045);
+        timers.schedule(timeout("a"), 1003);
+        timers.schedule(timeout("c"), 1500); // more than a revolution ahead
+
+        timers.advance(1002);
+        assertTrue(fired.isEmpty());
+        timers.advance(1003);
+        assertEquals(Arrays.asList("a"), fired);
+        timers.advance(1200);
+        assertEquals(Arrays.asList("a", "b"), fired);
+        assertEquals(1500, timers.nextDeadline());
+        timers.advance(1499);
+        assertEquals(1, timers.size());
+        timers.advance(1500);
+        assertEquals(Arrays.asList("a", "b", "c"), fired);
+        assertEquals(Long.MAX_VALUE, timers.nextDeadline());
+    }
+
+    @Test
+    void schedule_TimeoutRescheduledAndCancelled() {
+        TimerWheel.Timeout a = timeout("a");
+        timers.schedule(a, 1020);
+        timers.schedule(a, 1060);
+        assertEquals(1, timers.size());
+        assertEquals(1060, timers.nextDeadline());
+
+        timers.advance(1030);
+        assertTrue(fired.isEmpty());
+        timers.cancel(a);
+        assertFalse(a.isScheduled());
+        timers.advance(1100);
+        assertTrue(fired.isEmpty());
+    }
+
+    @Test
+    void advance_TaskReschedulesItself() {
+        long[] deadline = {1005};
+        TimerWheel.Timeout[] tick = new TimerWheel.Timeout[1];
+        tick[0] = new TimerWheel.Timeout(() -> {
+            fired.add("tick");
+            if (fired.size() < 3) timers.schedule(tick[0], deadline[0] += 100);
+        });
+        timers.schedule(tick[0], deadline[0]);
+
+        for (long now = 1000; now <= 1400; now += 7)
+            timers.advance(now);
+        assertEquals(3, fired.size());
+        assertEquals(0, timers.size());
+    }
+}